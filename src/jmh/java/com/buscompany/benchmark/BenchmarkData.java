@@ -0,0 +1,95 @@
+package com.buscompany.benchmark;
+
+import com.buscompany.model.Route;
+import com.buscompany.repository.RouteRepository;
+import com.buscompany.util.DatabaseUtils;
+import com.buscompany.util.PooledConnection;
+
+import java.io.File;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic route data shared by the benchmarks.
+ */
+final class BenchmarkData {
+    static final int CITY_COUNT = 200;
+
+    private BenchmarkData() {
+    }
+
+    static String city(int index) {
+        return "City " + index;
+    }
+
+    /**
+     * Generates routes in memory with a fixed seed.
+     */
+    static List<Route> generateRoutes(int count, long seed) {
+        Random random = new Random(seed);
+        List<Route> routes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int source = random.nextInt(CITY_COUNT);
+            int destination = (source + 1 + random.nextInt(CITY_COUNT - 1)) % CITY_COUNT;
+            int departure = random.nextInt(22 * 60);
+            int arrival = departure + 30 + random.nextInt(90);
+            routes.add(new Route(i + 1, city(source), city(destination),
+                    LocalTime.of(departure / 60, departure % 60), LocalTime.of(arrival / 60, arrival % 60),
+                    50, 50, 10 + random.nextInt(100)));
+        }
+        return routes;
+    }
+
+    /**
+     * Gives every route all its seats back: counts, seat maps and the
+     * seat change feed start over. Call with no RouteService open.
+     */
+    static void resetSeats() throws SQLException {
+        try (PooledConnection conn = DatabaseUtils.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("UPDATE routes SET available_seats = total_seats");
+            stmt.execute("DELETE FROM route_seat_maps");
+            stmt.execute("DELETE FROM seat_changes");
+        }
+    }
+
+    /**
+     * Creates a fresh database (the file named by -Ddatabase.name) holding
+     * the given number of generated routes, each with the given seat count.
+     */
+    static void createDatabase(int routeCount, int seatsPerRoute) throws SQLException {
+        DatabaseUtils.shutdown();
+        String name = System.getProperty("database.name", "bus_booking.db");
+        for (String suffix : new String[] {"", "-wal", "-shm"}) {
+            new File(name + suffix).delete();
+        }
+
+        RouteRepository repository = new RouteRepository();
+        repository.initializeDatabase();
+        try (PooledConnection conn = DatabaseUtils.getConnection()) {
+            conn.setAutoCommit(false);
+            conn.createStatement().execute("DELETE FROM routes");
+            PreparedStatement pstmt = conn.prepareStatement("INSERT INTO routes " +
+                    "(source_city, destination_city, departure_minute, arrival_minute, duration_minutes," +
+                    " total_seats, available_seats, price) VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+            for (Route route : generateRoutes(routeCount, 42)) {
+                pstmt.setString(1, route.getSourceCity());
+                pstmt.setString(2, route.getDestinationCity());
+                pstmt.setInt(3, route.getDepartureMinute());
+                pstmt.setInt(4, route.getArrivalMinute());
+                pstmt.setLong(5, route.getDurationMinutes());
+                pstmt.setInt(6, seatsPerRoute);
+                pstmt.setInt(7, seatsPerRoute);
+                pstmt.setDouble(8, route.getPrice());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            conn.commit();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.buscompany.benchmark;
+
+import com.buscompany.model.Route;
+import com.buscompany.service.RouteService;
+import com.buscompany.util.DatabaseUtils;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of RouteService.bookTickets under contention.
+ *
+ * A share of the bookings ({@code hotShare}) goes to a handful of hot
+ * routes, the rest is spread over all routes. Routes have a realistic
+ * seat count, so hot routes can sell out within an iteration; the
+ * {@link Outcomes} counters report booked and sold-out attempts separately.
+ * Every iteration starts with all seats free again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Ddatabase.name=target/bench-booking.db")
+public class BookingBenchmark {
+    private static final int ROUTE_COUNT = 1000;
+    private static final int HOT_ROUTES = 4;
+    private static final int SEATS_PER_ROUTE = 50;
+
+    @Param({"0.0", "0.9"})
+    private double hotShare;
+
+    private RouteService routeService;
+    private List<Route> routes;
+
+    /**
+     * Booking attempts per outcome, reported by JMH next to the throughput.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcomes {
+        public long booked;
+        public long soldOut;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkData.createDatabase(ROUTE_COUNT, SEATS_PER_ROUTE);
+    }
+
+    /**
+     * Tops every route back up and starts a fresh service, so no cached
+     * seat state survives from the previous iteration.
+     */
+    @Setup(Level.Iteration)
+    public void refillSeats() throws Exception {
+        BenchmarkData.resetSeats();
+        routeService = new RouteService();
+        routes = routeService.getAllRoutesSorted();
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopService() {
+        routeService.shutdown();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DatabaseUtils.shutdown();
+    }
+
+    private boolean bookOne(Outcomes outcomes) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int index = random.nextDouble() < hotShare ? random.nextInt(HOT_ROUTES) : random.nextInt(routes.size());
+        boolean booked = routeService.bookTickets(routes.get(index), 1);
+        if (booked) {
+            outcomes.booked++;
+        } else {
+            outcomes.soldOut++;
+        }
+        return booked;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean book01Thread(Outcomes outcomes) {
+        return bookOne(outcomes);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean book04Threads(Outcomes outcomes) {
+        return bookOne(outcomes);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean book16Threads(Outcomes outcomes) {
+        return bookOne(outcomes);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public boolean book64Threads(Outcomes outcomes) {
+        return bookOne(outcomes);
+    }
+}
@@ -0,0 +1,52 @@
+package com.buscompany.benchmark;
+
+import com.buscompany.model.Route;
+import com.buscompany.service.RouteTable;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+
+/**
+ * Retained heap of the route catalog as Route objects versus the columnar
+ * RouteTable. Not a JMH benchmark; run it directly after building the
+ * benchmarks profile:
+ *
+ * {@code java -Xmx4g -cp target/classes:<dependencies> com.buscompany.benchmark.CatalogFootprint [routes]}
+ *
+ * Every generated route has its own city name strings and LocalTime
+ * objects. Routes read from the database share their LocalTime objects
+ * (Route's per-minute table) and only own their name strings, so for them
+ * the List<Route> figure is an upper bound. The figures depend on the JVM,
+ * its heap settings and compressed oops; measure on the target machine.
+ */
+public final class CatalogFootprint {
+    private CatalogFootprint() {
+    }
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        long baseline = usedHeap();
+        List<Route> objects = BenchmarkData.generateRoutes(count, 42);
+        long objectBytes = usedHeap() - baseline;
+
+        baseline = usedHeap();
+        RouteTable table = RouteTable.of(objects);
+        long tableBytes = usedHeap() - baseline;
+
+        System.out.printf("%,d routes%n", count);
+        System.out.printf("  List<Route>: %,d bytes (%d bytes/route)%n", objectBytes, objectBytes / count);
+        System.out.printf("  RouteTable:  %,d bytes (%d bytes/route)%n", tableBytes, tableBytes / count);
+        // Keep both reachable until measured
+        System.out.println("  (" + objects.size() + " / " + table.size() + ")");
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
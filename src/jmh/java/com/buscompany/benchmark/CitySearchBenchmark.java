@@ -0,0 +1,90 @@
+package com.buscompany.benchmark;
+
+import com.buscompany.model.Route;
+import com.buscompany.service.CitySearchIndex;
+import com.buscompany.service.RouteTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * City type-ahead: the prefix index behind the city pickers versus folding
+ * and filtering every source city on each keystroke.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CitySearchBenchmark {
+    private static final String[] STEMS = {"Brașov", "Cluj", "Sfântu", "Târgu", "Piatra", "Câmpulung",
+            "Reșița", "Băile", "Șimleu", "Ițcani", "Łódź", "Göttingen", "Besançon", "Plzeň", "Győr", "Ålesund"};
+    private static final String[] SUFFIXES = {"", "-Napoca", " Gheorghe", " Mureș", " Neamț", " Nord",
+            " Sud", " de Sus", " de Jos", " Mare", " Mic", "-Sat"};
+    private static final int LIMIT = 15;
+
+    @Param({"2000", "20000"})
+    private int cityCount;
+
+    @Param({"b", "bras", "targu m"})
+    private String query;
+
+    private CitySearchIndex index;
+    private List<String> sourceCities;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        String[] names = new String[cityCount];
+        for (int i = 0; i < cityCount; i++) {
+            names[i] = STEMS[i % STEMS.length] + SUFFIXES[(i / STEMS.length) % SUFFIXES.length]
+                    + " " + (i / (STEMS.length * SUFFIXES.length) + 1);
+        }
+        List<Route> routes = new ArrayList<>();
+        for (int i = 0; i < cityCount * 10; i++) {
+            int source = random.nextInt(cityCount);
+            int destination = (source + 1 + random.nextInt(cityCount - 1)) % cityCount;
+            LocalTime departure = LocalTime.of(random.nextInt(22), random.nextInt(60));
+            routes.add(new Route(i + 1, names[source], names[destination], departure, departure.plusHours(1),
+                    40, 40, 50));
+        }
+        RouteTable table = RouteTable.of(routes);
+        index = new CitySearchIndex(table);
+        sourceCities = table.getCities().getSourceCities();
+    }
+
+    @Benchmark
+    public List<String> prefixIndex() {
+        return index.findSources(query, LIMIT);
+    }
+
+    @Benchmark
+    public List<String> linearScan() {
+        String prefix = CitySearchIndex.fold(query);
+        List<String> matches = new ArrayList<>();
+        for (String city : sourceCities) {
+            if (CitySearchIndex.fold(city).startsWith(prefix)) {
+                matches.add(city);
+                if (matches.size() == LIMIT) {
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+}
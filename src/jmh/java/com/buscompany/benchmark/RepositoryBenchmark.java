@@ -0,0 +1,101 @@
+package com.buscompany.benchmark;
+
+import com.buscompany.model.Route;
+import com.buscompany.repository.RouteRepository;
+import com.buscompany.util.DatabaseUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of each RouteRepository query against a generated SQLite database.
+ * Seat decrements go through the same path as bookings (seat map and seat
+ * change feed included); every iteration starts with all seats free again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Ddatabase.name=target/bench-repository.db")
+public class RepositoryBenchmark {
+    private static final int SEATS_PER_ROUTE = 50;
+
+    @Param({"10000"})
+    private int routeCount;
+
+    private RouteRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkData.createDatabase(routeCount, SEATS_PER_ROUTE);
+        repository = new RouteRepository();
+    }
+
+    @Setup(Level.Iteration)
+    public void refillSeats() throws Exception {
+        BenchmarkData.resetSeats();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DatabaseUtils.shutdown();
+    }
+
+    private static String randomCity() {
+        return BenchmarkData.city(ThreadLocalRandom.current().nextInt(BenchmarkData.CITY_COUNT));
+    }
+
+    @Benchmark
+    public List<Route> getAllRoutes() {
+        return repository.getAllRoutes();
+    }
+
+    @Benchmark
+    public List<Route> getRoutesBySourceAndDestination() {
+        return repository.getRoutesBySourceAndDestination(randomCity(), randomCity());
+    }
+
+    @Benchmark
+    public Route getRouteById() {
+        return repository.getRouteById(1 + ThreadLocalRandom.current().nextInt(routeCount));
+    }
+
+    @Benchmark
+    public long decrementAvailableSeats() throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int[] seat = {1 + random.nextInt(SEATS_PER_ROUTE)};
+        return repository.decrementAvailableSeats(
+                new int[] {1 + random.nextInt(routeCount)}, new int[] {1}, new int[][] {seat})[0];
+    }
+
+    @Benchmark
+    public void updateAvailableSeats() {
+        repository.updateAvailableSeats(1 + ThreadLocalRandom.current().nextInt(routeCount), SEATS_PER_ROUTE);
+    }
+
+    @Benchmark
+    public List<String> getAllSourceCities() {
+        return repository.getAllSourceCities();
+    }
+
+    @Benchmark
+    public List<String> getDestinationCitiesForSource() {
+        return repository.getDestinationCitiesForSource(randomCity());
+    }
+}
@@ -0,0 +1,111 @@
+package com.buscompany.benchmark;
+
+import com.buscompany.model.Route;
+import com.buscompany.repository.RouteRepository;
+import com.buscompany.util.DatabaseUtils;
+import com.buscompany.util.PooledConnection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-table scan throughput in rows per second: integer minute columns
+ * read by index (the current schema) against "HH:mm" text columns read by
+ * name and parsed with LocalTime (the schema before migration 6, copied
+ * into a legacy_routes table).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Ddatabase.name=target/bench-scan.db")
+public class RouteScanBenchmark {
+    private static final int ROUTE_COUNT = 100_000;
+
+    private RouteRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkData.createDatabase(ROUTE_COUNT, 50);
+        repository = new RouteRepository();
+        try (PooledConnection conn = DatabaseUtils.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS legacy_routes");
+            stmt.execute("CREATE TABLE legacy_routes AS SELECT id, source_city, destination_city," +
+                    " printf('%02d:%02d', departure_minute / 60, departure_minute % 60) AS departure_time," +
+                    " printf('%02d:%02d', arrival_minute / 60, arrival_minute % 60) AS arrival_time," +
+                    " total_seats, available_seats, price FROM routes");
+            // Rows per second is only right if every scan reads ROUTE_COUNT rows
+            for (String table : new String[] {"routes", "legacy_routes"}) {
+                try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+                    if (!rs.next() || rs.getInt(1) != ROUTE_COUNT) {
+                        throw new IllegalStateException(table + " does not hold " + ROUTE_COUNT + " rows");
+                    }
+                }
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DatabaseUtils.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROUTE_COUNT)
+    public void scanAllRoutes(Blackhole blackhole) {
+        repository.scanAllRoutes((id, source, destination, departure, arrival, total, available, price) -> {
+            blackhole.consume(id);
+            blackhole.consume(departure);
+            blackhole.consume(arrival);
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROUTE_COUNT)
+    public List<Route> getAllRoutes() {
+        return repository.getAllRoutes();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROUTE_COUNT)
+    public List<Route> legacyTextTimesByName() throws SQLException {
+        List<Route> routes = new ArrayList<>();
+        try (PooledConnection conn = DatabaseUtils.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM legacy_routes")) {
+            while (rs.next()) {
+                routes.add(new Route(
+                        rs.getInt("id"),
+                        rs.getString("source_city"),
+                        rs.getString("destination_city"),
+                        LocalTime.parse(rs.getString("departure_time")),
+                        LocalTime.parse(rs.getString("arrival_time")),
+                        rs.getInt("total_seats"),
+                        rs.getInt("available_seats"),
+                        rs.getDouble("price")));
+            }
+        }
+        return routes;
+    }
+}
@@ -0,0 +1,54 @@
+package com.buscompany.benchmark;
+
+import com.buscompany.model.Route;
+import com.buscompany.service.RouteService;
+import com.buscompany.service.RouteTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of sorting routes by source city and departure time: the stream sort
+ * over Route objects versus the primitive sort over the columnar RouteTable
+ * behind RouteService.getAllRoutesSorted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SortBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int routeCount;
+
+    private List<Route> routes;
+    private RouteTable table;
+
+    @Setup
+    public void setUp() {
+        routes = BenchmarkData.generateRoutes(routeCount, 42);
+        table = RouteTable.of(routes);
+    }
+
+    @Benchmark
+    public List<Route> sortBySourceAndDeparture() {
+        return RouteService.sortBySourceAndDeparture(routes);
+    }
+
+    @Benchmark
+    public int[] sortColumnar() {
+        return table.sortBySourceAndDeparture();
+    }
+}
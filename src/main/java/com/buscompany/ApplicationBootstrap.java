@@ -0,0 +1,194 @@
+package com.buscompany;
+
+import com.buscompany.service.RouteCatalog;
+import com.buscompany.service.RouteService;
+import com.buscompany.util.ConcurrencyUtils;
+import com.buscompany.util.DatabaseUtils;
+
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * Staged application startup.
+ *
+ * {@link #start()} begins the background stages right away, so they run
+ * while the FX thread loads the FXML and shows the window:
+ * - database: load the JDBC driver and open the first pooled connection
+ * - schema: construct the {@link RouteService} (schema migrations, seed
+ *   data, seat journal recovery)
+ * - catalog: load the route catalog and build the journey planner, so the
+ *   first search in a client window does not pay for it
+ *
+ * The route list only needs the service; its first page is queried from
+ * the database while the catalog is still warming up.
+ *
+ * Every stage and milestone is timed from JVM start and printed once the
+ * application is interactive and all stages are done.
+ */
+public class ApplicationBootstrap {
+    private final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private final List<Phase> phases = new ArrayList<>();
+    private final ExecutorService executor = ConcurrencyUtils.newTaskExecutor("bootstrap");
+    private final CompletableFuture<RouteService> routeService;
+    private final CompletableFuture<Void> catalog;
+    private final CompletableFuture<Void> interactive = new CompletableFuture<>();
+
+    private ApplicationBootstrap() {
+        mark("launch");
+        CompletableFuture<Void> database = CompletableFuture.runAsync(() -> time("database", () -> {
+            DatabaseUtils.loadDriver();
+            try {
+                DatabaseUtils.getConnection().close(); // Returns the warmed-up connection to the pool
+                return null;
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }), executor);
+        routeService = database.thenApplyAsync(ignored -> time("schema", () -> {
+            RouteService service = new RouteService();
+            service.startScheduledBackups();
+            return service;
+        }), executor);
+        catalog = routeService.thenAcceptAsync(service -> time("catalog", () -> {
+            RouteCatalog.Snapshot snapshot = service.getCatalog().snapshot();
+            snapshot.getJourneyPlanner();
+            return snapshot;
+        }), executor);
+
+        CompletableFuture.allOf(catalog, interactive).whenComplete((ignored, error) -> {
+            if (error != null) {
+                error.printStackTrace();
+            }
+            System.out.println(report());
+            executor.shutdown();
+        });
+    }
+
+    /**
+     * Starts the background stages.
+     */
+    public static ApplicationBootstrap start() {
+        return new ApplicationBootstrap();
+    }
+
+    /**
+     * Completes with the route service once the database and schema
+     * stages are done.
+     */
+    public CompletableFuture<RouteService> getRouteService() {
+        return routeService;
+    }
+
+    /**
+     * Runs and times a stage on the calling thread (e.g. FXML loading on
+     * the FX thread).
+     */
+    public <T> T time(String name, Supplier<T> stage) {
+        long startMillis = System.currentTimeMillis();
+        long start = System.nanoTime();
+        try {
+            return stage.get();
+        } finally {
+            record(new Phase(name, startMillis - jvmStartMillis, (System.nanoTime() - start) / 1_000_000,
+                    Thread.currentThread().getName()));
+        }
+    }
+
+    /**
+     * Records a milestone (a point in time, not a stage).
+     */
+    public void mark(String milestone) {
+        record(new Phase(milestone, System.currentTimeMillis() - jvmStartMillis, -1, Thread.currentThread().getName()));
+    }
+
+    /**
+     * Records that the user can work with the application: the window is
+     * shown and the first page of routes is on screen. Only the first call
+     * counts.
+     */
+    public void markInteractive() {
+        if (!interactive.isDone()) {
+            mark("interactive");
+            interactive.complete(null);
+        }
+    }
+
+    /**
+     * Gets the recorded stages and milestones: the duration of each stage,
+     * or for a milestone its time since JVM start, in milliseconds.
+     */
+    public Map<String, Long> getTimings() {
+        Map<String, Long> timings = new LinkedHashMap<>();
+        synchronized (phases) {
+            for (Phase phase : phases) {
+                timings.put(phase.name, phase.durationMillis >= 0 ? phase.durationMillis : phase.startMillis);
+            }
+        }
+        return timings;
+    }
+
+    /**
+     * Formats the timings, ordered by start time.
+     */
+    public String report() {
+        List<Phase> sorted;
+        synchronized (phases) {
+            sorted = new ArrayList<>(phases);
+        }
+        sorted.sort((a, b) -> Long.compare(a.startMillis, b.startMillis));
+        StringBuilder sb = new StringBuilder("Startup timings (ms since JVM start):");
+        for (Phase phase : sorted) {
+            if (phase.durationMillis < 0) {
+                sb.append(String.format("%n  %-20s at %6d", phase.name, phase.startMillis));
+            } else {
+                sb.append(String.format("%n  %-20s %6d - %6d  (%d ms on %s)", phase.name, phase.startMillis,
+                        phase.startMillis + phase.durationMillis, phase.durationMillis, phase.thread));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Shuts the route service down. If it is still starting, waits for it
+     * first, so a window closed during startup does not leave the journal,
+     * the seat writer or the database lock open.
+     */
+    public void shutdown() {
+        RouteService service;
+        try {
+            service = routeService.join();
+        } catch (CompletionException | CancellationException e) {
+            return; // Startup failed; there is nothing to close
+        }
+        service.shutdown();
+    }
+
+    private void record(Phase phase) {
+        synchronized (phases) {
+            phases.add(phase);
+        }
+    }
+
+    private static final class Phase {
+        final String name;
+        final long startMillis;
+        final long durationMillis; // -1 for milestones
+        final String thread;
+
+        Phase(String name, long startMillis, long durationMillis, String thread) {
+            this.name = name;
+            this.startMillis = startMillis;
+            this.durationMillis = durationMillis;
+            this.thread = thread;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.buscompany;
+
+import com.buscompany.server.BookingHttpServer;
+import com.buscompany.service.RouteService;
+import com.buscompany.util.AppConfig;
+import com.buscompany.util.ConcurrencyUtils;
+import com.buscompany.util.DatabaseUtils;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Headless entry point serving the booking API over HTTP.
+ * Does not start the JavaFX toolkit.
+ *
+ * Usage: {@code java -cp <classpath> com.buscompany.BookingServerCommand [port]}
+ */
+public class BookingServerCommand {
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : AppConfig.getInt("server.port", 8080);
+
+        RouteService routeService = new RouteService();
+        routeService.startScheduledBackups();
+        BookingHttpServer server = new BookingHttpServer(routeService, new InetSocketAddress(port));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(2);
+            routeService.shutdown();
+            DatabaseUtils.shutdown();
+        }, "server-shutdown"));
+
+        server.start();
+        System.out.printf("Booking API listening on http://localhost:%d/api (%s)%n",
+                server.getAddress().getPort(),
+                ConcurrencyUtils.hasVirtualThreads() ? "virtual threads" : "platform threads");
+    }
+}
@@ -1,11 +1,15 @@
 package com.buscompany;
 
+import com.buscompany.controller.MainSceneController;
+import com.buscompany.util.DatabaseUtils;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 
 /**
  * Main entry point for the Bus Booking System JavaFX application.
@@ -21,25 +25,54 @@ import java.io.IOException;
  * Dependencies: Managed via Maven (pom.xml)
  */
 public class BusBookingApplication extends Application {
+    private ApplicationBootstrap bootstrap;
+
+    /**
+     * Starts the database, schema and catalog stages in the background
+     * (see {@link ApplicationBootstrap}); runs before the FX thread starts
+     * loading the window.
+     */
+    @Override
+    public void init() {
+        bootstrap = ApplicationBootstrap.start();
+    }
 
     @Override
     public void start(Stage primaryStage) {
         try {
-            // Load the main scene from FXML
+            // Load the main scene from FXML while the database starts in the background
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/main-scene.fxml"));
-            Scene scene = new Scene(loader.load(), 1000, 700);
+            Parent root = bootstrap.time("fxml", () -> {
+                try {
+                    return loader.<Parent>load();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            Scene scene = new Scene(root, 1000, 700);
             
             primaryStage.setTitle("Bus Booking System");
             primaryStage.setScene(scene);
             primaryStage.setWidth(1000);
             primaryStage.setHeight(700);
             primaryStage.show();
-        } catch (IOException e) {
+            bootstrap.mark("window shown");
+
+            // The window shows a loading state until the route service is ready
+            MainSceneController controller = loader.getController();
+            controller.start(bootstrap);
+        } catch (UncheckedIOException e) {
             e.printStackTrace();
             System.err.println("Failed to load FXML file");
         }
     }
 
+    @Override
+    public void stop() {
+        bootstrap.shutdown();
+        DatabaseUtils.shutdown();
+    }
+
     public static void main(String[] args) {
         launch();
     }
@@ -0,0 +1,40 @@
+package com.buscompany;
+
+import com.buscompany.service.RouteService;
+import com.buscompany.simulation.LoadSimulator;
+import com.buscompany.util.AppConfig;
+import com.buscompany.util.DatabaseUtils;
+
+/**
+ * Headless entry point for the multi-client load simulation.
+ * Books against the configured database, so point {@code database.name}
+ * at a scratch copy.
+ *
+ * Usage: {@code java -cp <classpath> com.buscompany.LoadSimulatorCommand [clients] [seconds]}
+ *
+ * Exits with status 1 if the overbooking check fails.
+ */
+public class LoadSimulatorCommand {
+
+    public static void main(String[] args) {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : AppConfig.getInt("simulator.clients", 200);
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : AppConfig.getLong("simulator.duration-seconds", 30);
+
+        int exitCode = 0;
+        RouteService routeService = new RouteService();
+        try {
+            LoadSimulator.Report report = new LoadSimulator(routeService, clients, seconds * 1000).run();
+            System.out.println(report);
+            if (!report.isConsistent()) {
+                exitCode = 1;
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            exitCode = 1;
+        } finally {
+            routeService.shutdown();
+            DatabaseUtils.shutdown();
+        }
+        System.exit(exitCode);
+    }
+}
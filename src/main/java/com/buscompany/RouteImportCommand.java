@@ -0,0 +1,49 @@
+package com.buscompany;
+
+import com.buscompany.repository.RouteImporter;
+import com.buscompany.repository.RouteRepository;
+import com.buscompany.util.DatabaseUtils;
+
+import java.nio.file.Path;
+
+/**
+ * Headless entry point for bulk timetable imports.
+ *
+ * Usage: {@code java -cp <classpath> com.buscompany.RouteImportCommand routes.csv}
+ *
+ * Interrupting the process (Ctrl+C) keeps every committed checkpoint;
+ * running the same command again resumes the import from there.
+ */
+public class RouteImportCommand {
+
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println("Usage: RouteImportCommand <routes.csv>");
+            System.exit(2);
+        }
+
+        int exitCode = 0;
+        try {
+            new RouteRepository().initializeDatabase();
+            long start = System.nanoTime();
+            RouteImporter.ImportProgress progress = new RouteImporter()
+                    .importFile(Path.of(args[0]), p -> System.out.println("Progress: " + p));
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            if (progress.isResumed()) {
+                System.out.println("Resumed from the checkpoint of an earlier run");
+            }
+            for (String error : progress.getErrors()) {
+                System.out.println("Rejected " + error);
+            }
+            System.out.printf("Imported %d routes, rejected %d rows in %.1f s%n",
+                    progress.getRowsImported(), progress.getRowsRejected(), seconds);
+        } catch (Exception e) {
+            e.printStackTrace();
+            exitCode = 1;
+        } finally {
+            DatabaseUtils.shutdown();
+        }
+        System.exit(exitCode);
+    }
+}
@@ -1,18 +1,29 @@
 package com.buscompany.controller;
 
+import com.buscompany.model.Journey;
 import com.buscompany.model.Route;
+import com.buscompany.service.AsyncRouteService;
 import com.buscompany.service.RouteService;
+import com.buscompany.util.AppConfig;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
 /**
  * Controller for client booking window.
  * 
  * Handles:
- * - Source city selection
- * - Dynamic destination city filtering
- * - Route display based on selected cities
- * - Ticket booking with seat availability validation
+ * - Source city selection, with type-ahead suggestions
+ * - Dynamic destination city filtering, with type-ahead suggestions
+ * - Route table for the selected cities, with seat counts updated per row
+ * - Ticket booking with seat availability validation and seat assignment
  * - Total price calculation
  * - Observer pattern for real-time updates across multiple windows
  * 
@@ -23,19 +34,39 @@ import javafx.scene.control.*;
  * 4. Ticket booking with seat availability validation (0.5 + 1 points)
  * 5. Total price calculation (2 points)
  * 6. Observer pattern for multiple client windows (BONUS: 1 point)
+ * 7. Itineraries with transfers from the journey planner
+ *
+ * All service calls go through {@link AsyncRouteService}; results are
+ * applied on the FX Application Thread via Platform.runLater.
  */
-public class ClientWindowController implements RouteService.BookingObserver {
+public class ClientWindowController implements SeatUpdateCoalescer.SeatUpdateHandler {
+    private static final int CITY_SUGGESTIONS = AppConfig.getInt("ui.city-search.limit", 15);
+
     @FXML private ComboBox<String> sourceCityComboBox;
     @FXML private ComboBox<String> destinationCityComboBox;
-    @FXML private ListView<Route> availableRoutesListView;
+    @FXML private RouteTableView availableRoutesTable;
+    @FXML private ListView<Journey> journeysListView;
     @FXML private Label routeDetailsLabel;
     @FXML private Spinner<Integer> ticketCountSpinner;
     @FXML private Label totalPriceLabel;
     @FXML private Button bookButton;
     @FXML private Label windowTitleLabel;
 
-    private RouteService routeService;
-    private Route selectedRoute;
+    private AsyncRouteService routeService;
+    private RouteRow selectedRow;
+
+    // Seat changes of the displayed routes, applied in batches with at most one flush queued on the FX thread
+    private final SeatUpdateCoalescer seatUpdates = new SeatUpdateCoalescer(this);
+    private final List<Integer> subscribedRouteIds = new ArrayList<>();
+
+    // Set while suggestions are replaced, so the editors' listeners ignore it
+    private boolean updatingCityItems;
+
+    // Only the latest lookup of each kind is delivered; older ones are cancelled
+    private final AsyncRouteService.LatestRequest<List<String>> sourceRequest = new AsyncRouteService.LatestRequest<>();
+    private final AsyncRouteService.LatestRequest<List<String>> destinationRequest = new AsyncRouteService.LatestRequest<>();
+    private final AsyncRouteService.LatestRequest<List<Route>> routesRequest = new AsyncRouteService.LatestRequest<>();
+    private final AsyncRouteService.LatestRequest<List<Journey>> journeysRequest = new AsyncRouteService.LatestRequest<>();
 
     /**
      * Initialize the client window controller.
@@ -47,19 +78,43 @@ public class ClientWindowController implements RouteService.BookingObserver {
         ticketCountSpinner.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(1, 50, 1));
         ticketCountSpinner.valueProperty().addListener((obs, oldVal, newVal) -> updateTotalPrice());
 
+        journeysListView.setCellFactory(lv -> new ListCell<Journey>() {
+            @Override
+            protected void updateItem(Journey journey, boolean empty) {
+                super.updateItem(journey, empty);
+                setText(empty || journey == null ? null : formatJourneyDisplay(journey));
+            }
+        });
+
+        // Type-ahead: every edit looks up the best matching cities
+        sourceCityComboBox.getEditor().textProperty().addListener(
+                (obs, oldVal, newVal) -> onCityTyped(sourceCityComboBox, newVal, this::searchSourceCities));
+        destinationCityComboBox.getEditor().textProperty().addListener(
+                (obs, oldVal, newVal) -> onCityTyped(destinationCityComboBox, newVal, this::searchDestinationCities));
+
         // Listen for route selection
-        availableRoutesListView.getSelectionModel().selectedItemProperty().addListener(
+        availableRoutesTable.getSelectionModel().selectedItemProperty().addListener(
                 (obs, oldVal, newVal) -> onRouteSelected(newVal)
         );
     }
 
     /**
-     * Sets the route service and registers this controller as an observer.
+     * Sets the route service. Seat updates are subscribed per displayed route.
      */
-    public void setRouteService(RouteService routeService) {
+    public void setRouteService(AsyncRouteService routeService) {
         this.routeService = routeService;
-        this.routeService.addObserver(this); // Register for booking updates
-        loadSourceCities();
+        searchSourceCities("");
+    }
+
+    /**
+     * Stops receiving seat updates (call when the window closes).
+     */
+    public void dispose() {
+        subscribeToSeatUpdates(List.of());
+        sourceRequest.cancel();
+        destinationRequest.cancel();
+        routesRequest.cancel();
+        journeysRequest.cancel();
     }
 
     /**
@@ -72,11 +127,82 @@ public class ClientWindowController implements RouteService.BookingObserver {
     }
 
     /**
-     * Loads all available source cities into the combo box.
+     * Shows the source cities matching the typed text (all of them, best
+     * served first, for empty text).
+     */
+    private void searchSourceCities(String query) {
+        sourceRequest.replace(routeService,
+                        () -> routeService.getRouteService().searchSourceCities(query, CITY_SUGGESTIONS))
+                .thenAcceptAsync(cities -> showSuggestions(sourceCityComboBox, cities), Platform::runLater)
+                .exceptionally(this::handleFailure);
+    }
+
+    /**
+     * Shows the destinations of the selected source city matching the typed text.
      */
-    private void loadSourceCities() {
-        var cities = routeService.getAllSourceCities();
-        sourceCityComboBox.setItems(cities);
+    private void searchDestinationCities(String query) {
+        String source = sourceCityComboBox.getValue();
+        if (source == null) {
+            return;
+        }
+        destinationRequest.replace(routeService,
+                        () -> routeService.getRouteService().searchDestinationCities(source, query, CITY_SUGGESTIONS))
+                .thenAcceptAsync(cities -> showSuggestions(destinationCityComboBox, cities), Platform::runLater)
+                .exceptionally(this::handleFailure);
+    }
+
+    /**
+     * Starts a lookup when the user edits a city picker's text. Text set by
+     * the combo box itself (a chosen suggestion) is ignored.
+     */
+    private void onCityTyped(ComboBox<String> comboBox, String text, Consumer<String> search) {
+        if (updatingCityItems || routeService == null || !comboBox.getEditor().isFocused()
+                || (text != null && text.equals(comboBox.getValue()))) {
+            return;
+        }
+        search.accept(text == null ? "" : text);
+    }
+
+    /**
+     * Replaces the suggestions of a city picker, keeping what the user has
+     * typed so far, and opens the list while the user is typing.
+     */
+    private void showSuggestions(ComboBox<String> comboBox, List<String> cities) {
+        TextField editor = comboBox.getEditor();
+        String text = editor.getText();
+        int caret = editor.getCaretPosition();
+        updatingCityItems = true;
+        try {
+            comboBox.getItems().setAll(cities);
+            editor.setText(text);
+            editor.positionCaret(caret);
+        } finally {
+            updatingCityItems = false;
+        }
+        if (!editor.isFocused()) {
+            return;
+        }
+        if (cities.isEmpty()) {
+            comboBox.hide();
+        } else {
+            comboBox.show();
+        }
+    }
+
+    /**
+     * Gets the city chosen in a picker. Typed text that is not a city name
+     * is replaced by the best suggestion; that change triggers the picker's
+     * action again, so null is returned for this one.
+     */
+    private String chosenCity(ComboBox<String> comboBox) {
+        String value = comboBox.getValue();
+        if (value == null || value.isBlank() || comboBox.getItems().contains(value)) {
+            return value == null || value.isBlank() ? null : value;
+        }
+        if (!comboBox.getItems().isEmpty()) {
+            comboBox.setValue(comboBox.getItems().get(0));
+        }
+        return null;
     }
 
     /**
@@ -86,14 +212,18 @@ public class ClientWindowController implements RouteService.BookingObserver {
      */
     @FXML
     private void onSourceCitySelected() {
-        String selectedSource = sourceCityComboBox.getValue();
+        String selectedSource = chosenCity(sourceCityComboBox);
         if (selectedSource != null) {
-            var destinations = routeService.getDestinationCitiesForSource(selectedSource);
-            destinationCityComboBox.setItems(destinations);
+            routesRequest.cancel();
+            journeysRequest.cancel();
+            subscribeToSeatUpdates(List.of());
             destinationCityComboBox.setValue(null);
-            availableRoutesListView.getItems().clear();
+            destinationCityComboBox.getEditor().clear();
+            availableRoutesTable.setRoutes(List.of());
+            journeysListView.getItems().clear();
             routeDetailsLabel.setText("");
             totalPriceLabel.setText("Total: 0 lei");
+            searchDestinationCities("");
         }
     }
 
@@ -105,29 +235,34 @@ public class ClientWindowController implements RouteService.BookingObserver {
     @FXML
     private void onDestinationCitySelected() {
         String source = sourceCityComboBox.getValue();
-        String destination = destinationCityComboBox.getValue();
+        String destination = chosenCity(destinationCityComboBox);
         
         if (source != null && destination != null) {
-            var routes = routeService.getRoutesBySourceAndDestination(source, destination);
-            availableRoutesListView.setItems(routes);
-            
-            // Custom cell factory to display route details
-            availableRoutesListView.setCellFactory(lv -> new ListCell<Route>() {
-                @Override
-                protected void updateItem(Route route, boolean empty) {
-                    super.updateItem(route, empty);
-                    if (empty || route == null) {
-                        setText(null);
-                    } else {
-                        setText(formatRouteDisplay(route));
-                    }
-                }
-            });
+            routesRequest.replace(routeService,
+                            () -> routeService.getRouteService().getRoutesBySourceAndDestination(source, destination))
+                    .thenAcceptAsync(this::showRoutes, Platform::runLater)
+                    .exceptionally(this::handleFailure);
+
+            int seats = ticketCountSpinner.getValue();
+            journeysRequest.replace(routeService,
+                            () -> routeService.getRouteService().findJourneys(source, destination, seats))
+                    .thenAcceptAsync(journeys -> journeysListView.getItems().setAll(journeys), Platform::runLater)
+                    .exceptionally(this::handleFailure);
         }
     }
 
     /**
-     * Formats route information for display in the list.
+     * Displays the routes for the selected cities. Subscribing delivers the
+     * current seat counts too, so bookings made since the routes were
+     * fetched show up in the next flush.
+     */
+    private void showRoutes(List<Route> routes) {
+        availableRoutesTable.setRoutes(routes);
+        subscribeToSeatUpdates(routes.stream().map(Route::getId).toList());
+    }
+
+    /**
+     * Formats route information for the selected route details.
      */
     private String formatRouteDisplay(Route route) {
         return String.format("%s → %s | %s-%s | Duration: %s | %d seats available | %.2f lei",
@@ -141,12 +276,27 @@ public class ClientWindowController implements RouteService.BookingObserver {
     }
 
     /**
-     * Handles route selection from the list.
+     * Formats an itinerary for display in the list.
+     */
+    private String formatJourneyDisplay(Journey journey) {
+        String transfers = journey.getTransferCount() == 0 ? "direct"
+                : journey.getTransferCount() + (journey.getTransferCount() == 1 ? " transfer" : " transfers");
+        return String.format("%s-%s | %s | Duration: %s | %.2f lei | %s",
+                journey.getDepartureTime(),
+                journey.getArrivalTime(),
+                transfers,
+                journey.getDurationString(),
+                journey.getTotalPrice(),
+                journey);
+    }
+
+    /**
+     * Handles route selection from the table.
      */
-    private void onRouteSelected(Route route) {
-        this.selectedRoute = route;
-        if (route != null) {
-            routeDetailsLabel.setText(formatRouteDisplay(route));
+    private void onRouteSelected(RouteRow row) {
+        this.selectedRow = row;
+        if (row != null) {
+            routeDetailsLabel.setText(formatRouteDisplay(row.getRoute()));
             updateTotalPrice();
         }
     }
@@ -155,9 +305,9 @@ public class ClientWindowController implements RouteService.BookingObserver {
      * Updates the total price label based on selected tickets.
      */
     private void updateTotalPrice() {
-        if (selectedRoute != null) {
+        if (selectedRow != null) {
             int ticketCount = ticketCountSpinner.getValue();
-            double total = ticketCount * selectedRoute.getPrice();
+            double total = ticketCount * selectedRow.getRoute().getPrice();
             totalPriceLabel.setText(String.format("Total: %.2f lei", total));
         }
     }
@@ -171,46 +321,121 @@ public class ClientWindowController implements RouteService.BookingObserver {
      */
     @FXML
     private void onBookTickets() {
-        if (selectedRoute == null) {
+        if (selectedRow == null) {
             showAlert("Info", "Please select a route first");
             return;
         }
 
+        Route route = selectedRow.getRoute();
         int ticketCount = ticketCountSpinner.getValue();
 
-        // Try to book tickets
-        boolean success = routeService.bookTickets(selectedRoute, ticketCount);
+        // Try to book tickets off the FX thread
+        bookButton.setDisable(true);
+        routeService.submit(() -> new BookingOutcome(
+                        routeService.getRouteService().bookSeats(route, ticketCount),
+                        routeService.getRouteService().getAvailableSeats(route.getId())))
+                .thenAcceptAsync(outcome -> onBookingCompleted(route, ticketCount, outcome), Platform::runLater)
+                .exceptionally(this::handleFailure)
+                .whenCompleteAsync((ignored, error) -> bookButton.setDisable(false), Platform::runLater);
+    }
 
-        if (success) {
-            double totalPrice = ticketCount * selectedRoute.getPrice();
+    /**
+     * Shows the result of a booking attempt (runs on the FX thread).
+     */
+    private void onBookingCompleted(Route route, int ticketCount, BookingOutcome outcome) {
+        if (outcome.seats != null) {
+            double totalPrice = ticketCount * route.getPrice();
             showAlert("Success", 
-                    String.format("Booking successful!\nTickets: %d\nTotal: %.2f lei", ticketCount, totalPrice));
+                    String.format("Booking successful!\nTickets: %d\nSeats: %s\nTotal: %.2f lei",
+                            ticketCount, formatSeatNumbers(outcome.seats), totalPrice));
             
-            // Refresh the routes list to show updated seat count
-            onDestinationCitySelected();
+            // The seat count row updates itself through the seat change subscription
             ticketCountSpinner.getValueFactory().setValue(1);
         } else {
             // REQUIREMENT: Show error message if insufficient seats (0.5 points)
             showAlert("Booking Failed", 
                     String.format("Not enough seats available.\nRequested: %d\nAvailable: %d",
-                    ticketCount, selectedRoute.getAvailableSeats()));
+                    ticketCount, outcome.availableSeats));
+        }
+    }
+
+    /**
+     * Subscribes to seat changes of exactly the given routes.
+     */
+    private void subscribeToSeatUpdates(List<Integer> routeIds) {
+        RouteService service = routeService.getRouteService();
+        for (Integer routeId : subscribedRouteIds) {
+            service.unsubscribeFromSeatChanges(routeId, seatUpdates);
+        }
+        subscribedRouteIds.clear();
+        for (Integer routeId : routeIds) {
+            service.subscribeToSeatChanges(routeId, seatUpdates);
+            subscribedRouteIds.add(routeId);
         }
+        seatUpdates.retainRoutes(routeIds);
     }
 
     /**
      * REQUIREMENT: Observer pattern implementation.
-     * When another client books tickets, this window is notified and updates.
+     * When any client books tickets on a displayed route, this window is
+     * notified with the new seat count and updates just that row in place.
      * (BONUS: 1 point)
      */
     @Override
-    public void onBookingMade(Route route, int ticketCount) {
-        // Refresh routes if the booked route is in the current view
-        String source = sourceCityComboBox.getValue();
-        String destination = destinationCityComboBox.getValue();
-        
-        if (source != null && destination != null) {
-            onDestinationCitySelected();
+    public void applySeatUpdates(Map<Integer, Integer> seatsByRouteId) {
+        // Rows change in place: the items list, scroll position and selection stay as they are
+        if (availableRoutesTable.updateSeats(seatsByRouteId) && selectedRow != null
+                && seatsByRouteId.containsKey(selectedRow.getRoute().getId())) {
+            routeDetailsLabel.setText(formatRouteDisplay(selectedRow.getRoute()));
+        }
+    }
+
+    /**
+     * Reports a failed service call; cancelled (superseded) requests are ignored.
+     */
+    private <T> T handleFailure(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (!(cause instanceof CancellationException)) {
+            cause.printStackTrace();
+            Platform.runLater(() -> showAlert("Error", "Operation failed: " + cause.getMessage()));
+        }
+        return null;
+    }
+
+    /**
+     * Result of a booking attempt with the seat count seen right after it.
+     */
+    private static class BookingOutcome {
+        final int[] seats;
+        final int availableSeats;
+
+        BookingOutcome(int[] seats, int availableSeats) {
+            this.seats = seats;
+            this.availableSeats = availableSeats;
+        }
+    }
+
+    /**
+     * Formats seat numbers, collapsing adjacent ones into ranges (e.g. "4-6, 9").
+     */
+    private static String formatSeatNumbers(int[] seats) {
+        StringBuilder sb = new StringBuilder();
+        int i = 0;
+        while (i < seats.length) {
+            int j = i;
+            while (j + 1 < seats.length && seats[j + 1] == seats[j] + 1) {
+                j++;
+            }
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(seats[i]);
+            if (j > i) {
+                sb.append('-').append(seats[j]);
+            }
+            i = j + 1;
         }
+        return sb.toString();
     }
 
     /**
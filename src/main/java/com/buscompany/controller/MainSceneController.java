@@ -1,46 +1,197 @@
 package com.buscompany.controller;
 
+import com.buscompany.ApplicationBootstrap;
 import com.buscompany.model.Route;
-import com.buscompany.service.RouteService;
+import com.buscompany.repository.RouteImporter;
+import com.buscompany.service.AsyncRouteService;
+import com.buscompany.service.OccupancyAnalytics;
+import com.buscompany.util.AppConfig;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * Controller for the main application scene.
  * 
  * Handles:
- * - Display of all routes sorted by city and departure time
+ * - Display of all routes sorted by city and departure time, loaded page by page
  * - Client window creation
+ * - Bulk route import
+ * - Live occupancy and revenue dashboard
  * - Application initialization
  */
 public class MainSceneController {
     @FXML private ListView<Route> allRoutesListView;
     @FXML private Button openClientWindowButton;
     @FXML private Label routesCountLabel;
+    @FXML private Button importRoutesButton;
+    @FXML private ProgressBar importProgressBar;
+    @FXML private Label analyticsTotalLabel;
+    @FXML private ListView<OccupancyAnalytics.Stats> analyticsHoursListView;
+    @FXML private ListView<OccupancyAnalytics.Stats> analyticsPairsListView;
 
-    private RouteService routeService;
+    private static final int PAGE_SIZE = AppConfig.getInt("ui.routes.page-size", 200);
+    /** Fetch the next page when a cell this close to the end is shown. */
+    private static final int PREFETCH_ROWS = PAGE_SIZE / 4;
+    private static final long ANALYTICS_REFRESH_MILLIS = AppConfig.getLong("ui.analytics.refresh-ms", 2000);
+    private static final int ANALYTICS_TOP_PAIRS = AppConfig.getInt("ui.analytics.top-pairs", 10);
+
+    private final ObservableList<Route> loadedRoutes = FXCollections.observableArrayList();
+    private AsyncRouteService routeService;
+    private ApplicationBootstrap bootstrap;
     private int clientWindowCounter = 0;
+    private int listGeneration;
+    private boolean loadingPage;
+    private boolean allPagesLoaded;
+    private long shownAnalyticsChange = -1;
+    private boolean analyticsRefreshing;
 
+    /**
+     * Shows the loading state; the route service is not ready yet
+     * (see {@link #start(ApplicationBootstrap)}).
+     */
     @FXML
     public void initialize() {
-        routeService = new RouteService();
-        loadAllRoutes();
+        allRoutesListView.setItems(loadedRoutes);
+        allRoutesListView.setCellFactory(list -> new RouteCell());
+        allRoutesListView.setPlaceholder(new Label("Loading routes..."));
+        routesCountLabel.setText("Starting...");
+        openClientWindowButton.setDisable(true);
+        importRoutesButton.setDisable(true);
+    }
+
+    /**
+     * Waits for the route service from the bootstrap without blocking the
+     * FX thread, then enables the window and loads the first page.
+     */
+    public void start(ApplicationBootstrap bootstrap) {
+        this.bootstrap = bootstrap;
+        bootstrap.getRouteService().whenCompleteAsync((service, error) -> {
+            if (error != null) {
+                error.printStackTrace();
+                routesCountLabel.setText("Failed to start");
+                allRoutesListView.setPlaceholder(new Label("The database could not be opened"));
+                showErrorAlert("Error", "Failed to start: " + error.getMessage());
+                return;
+            }
+            routeService = new AsyncRouteService(service);
+            allRoutesListView.setPlaceholder(new Label("No routes"));
+            openClientWindowButton.setDisable(false);
+            importRoutesButton.setDisable(false);
+            loadAllRoutes();
+            startAnalyticsRefresh();
+        }, Platform::runLater);
+    }
+
+    /**
+     * Refreshes the dashboard at a fixed interval. Each tick reads the
+     * latest published analytics snapshot (no locks, no database) and only
+     * touches the UI when the figures changed.
+     */
+    private void startAnalyticsRefresh() {
+        Timeline timeline = new Timeline(new KeyFrame(Duration.millis(ANALYTICS_REFRESH_MILLIS),
+                event -> refreshAnalytics()));
+        timeline.setCycleCount(Timeline.INDEFINITE);
+        timeline.play();
+        refreshAnalytics();
+    }
+
+    private void refreshAnalytics() {
+        if (analyticsRefreshing) {
+            return; // The first snapshot builds the aggregates and may take longer than a tick
+        }
+        analyticsRefreshing = true;
+        OccupancyAnalytics analytics = routeService.getRouteService().getAnalytics();
+        routeService.submit(analytics::snapshot)
+                .whenCompleteAsync((snapshot, error) -> {
+                    analyticsRefreshing = false;
+                    if (error != null) {
+                        error.printStackTrace();
+                        return;
+                    }
+                    if (snapshot.getChangeCount() == shownAnalyticsChange) {
+                        return;
+                    }
+                    shownAnalyticsChange = snapshot.getChangeCount();
+                    OccupancyAnalytics.Stats total = snapshot.getTotal();
+                    analyticsTotalLabel.setText(String.format("Load factor %.1f%% (%d of %d seats sold)%nRevenue %.2f lei",
+                            total.getLoadFactor() * 100, total.getSoldSeats(), total.getTotalSeats(),
+                            total.getRevenue()));
+                    List<OccupancyAnalytics.Stats> hours = snapshot.getHours().stream()
+                            .filter(hour -> hour.getRoutes() > 0)
+                            .collect(Collectors.toList());
+                    analyticsHoursListView.getItems().setAll(hours);
+                    analyticsPairsListView.getItems().setAll(snapshot.getTopCityPairs(ANALYTICS_TOP_PAIRS));
+                }, Platform::runLater);
     }
 
     /**
-     * Loads all routes sorted by source city and departure time.
-     * REQUIREMENT: Uses Java Streams for sorting (1 point)
+     * Shows all routes sorted by source city and departure time.
+     *
+     * Routes are fetched a page at a time (keyset pagination in the
+     * database) as the user scrolls, so the first page appears without
+     * reading or sorting the whole catalog. The count comes from a
+     * separate cheap query.
      */
     private void loadAllRoutes() {
-        var routes = routeService.getAllRoutesSorted();
-        allRoutesListView.getItems().setAll(routes);
-        routesCountLabel.setText(String.format("Total Routes: %d", routes.size()));
+        listGeneration++;
+        loadedRoutes.clear();
+        allPagesLoaded = false;
+        loadingPage = false;
+        routesCountLabel.setText("Loading routes...");
+        routeService.countRoutes()
+                .thenAcceptAsync(count -> routesCountLabel.setText(String.format("Total Routes: %d", count)),
+                        Platform::runLater)
+                .exceptionally(error -> {
+                    error.printStackTrace();
+                    return null;
+                });
+        loadNextPage();
+    }
+
+    /**
+     * Fetches the page after the last loaded route, unless one is already
+     * on its way or the end has been reached.
+     */
+    private void loadNextPage() {
+        if (loadingPage || allPagesLoaded) {
+            return;
+        }
+        loadingPage = true;
+        int generation = listGeneration;
+        Route after = loadedRoutes.isEmpty() ? null : loadedRoutes.get(loadedRoutes.size() - 1);
+        routeService.getRoutesPage(after, PAGE_SIZE)
+                .whenCompleteAsync((page, error) -> {
+                    if (generation != listGeneration) {
+                        return; // The list was reloaded meanwhile
+                    }
+                    loadingPage = false;
+                    if (error != null) {
+                        error.printStackTrace();
+                        showErrorAlert("Error", "Failed to load routes: " + error.getMessage());
+                        return;
+                    }
+                    allPagesLoaded = page.size() < PAGE_SIZE;
+                    loadedRoutes.addAll(page);
+                    if (bootstrap != null) {
+                        bootstrap.markInteractive(); // First page on screen
+                    }
+                }, Platform::runLater);
     }
 
     @FXML
@@ -59,6 +210,7 @@ public class MainSceneController {
             stage.setScene(scene);
             stage.setWidth(900);
             stage.setHeight(600);
+            stage.setOnHidden(event -> controller.dispose());
             stage.show();
         } catch (IOException e) {
             showErrorAlert("Error", "Failed to open client window: " + e.getMessage());
@@ -66,6 +218,75 @@ public class MainSceneController {
         }
     }
 
+    /**
+     * Imports routes from a CSV file chosen by the user. The import runs in
+     * the background with a progress bar; the route list is reloaded after.
+     */
+    @FXML
+    private void onImportRoutes() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import Routes");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv", "*.txt"));
+        File file = chooser.showOpenDialog(importRoutesButton.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        importRoutesButton.setDisable(true);
+        importProgressBar.setProgress(0);
+        importProgressBar.setVisible(true);
+        routeService.submit(() -> {
+                    try {
+                        return routeService.getRouteService().importRoutes(file.toPath(),
+                                progress -> {
+                                    double fraction = progress.getFraction();
+                                    Platform.runLater(() -> importProgressBar.setProgress(fraction));
+                                });
+                    } catch (Exception e) {
+                        throw new RuntimeException(e.getMessage(), e);
+                    }
+                })
+                .whenCompleteAsync((progress, error) -> {
+                    importRoutesButton.setDisable(false);
+                    importProgressBar.setVisible(false);
+                    loadAllRoutes();
+                    if (error != null) {
+                        error.printStackTrace();
+                        showErrorAlert("Import Failed", "Failed to import routes: " + error.getMessage());
+                    } else {
+                        showImportSummary(progress);
+                    }
+                }, Platform::runLater);
+    }
+
+    private void showImportSummary(RouteImporter.ImportProgress progress) {
+        StringBuilder content = new StringBuilder(String.format("Imported %d routes, rejected %d rows.",
+                progress.getRowsImported(), progress.getRowsRejected()));
+        for (String error : progress.getErrors()) {
+            content.append("\n").append(error);
+        }
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Import Routes");
+        alert.setHeaderText(progress.isResumed() ? "Import resumed and finished" : "Import finished");
+        alert.setContentText(content.toString());
+        alert.showAndWait();
+    }
+
+    /**
+     * Route cell that requests the next page when the end of the loaded
+     * routes scrolls into view.
+     */
+    private class RouteCell extends ListCell<Route> {
+        @Override
+        protected void updateItem(Route route, boolean empty) {
+            super.updateItem(route, empty);
+            setText(empty || route == null ? null : route.toString());
+            if (!empty && getIndex() >= loadedRoutes.size() - PREFETCH_ROWS) {
+                loadNextPage();
+            }
+        }
+    }
+
     private void showErrorAlert(String title, String content) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle(title);
@@ -0,0 +1,125 @@
+package com.buscompany.controller;
+
+import com.buscompany.model.Route;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+
+import java.time.LocalTime;
+
+/**
+ * One row of a {@link RouteTableView}: a route with its display text
+ * formatted once.
+ *
+ * Times, duration and price do not change while a route is shown, so their
+ * text is built when the row is created and reused by every cell update.
+ * The seat count is the only live value. It is an observable property, so
+ * a change repaints just that cell, and its text is rebuilt only when the
+ * count changes. All methods run on the FX Application Thread.
+ */
+public class RouteRow {
+    private final ReadOnlyObjectWrapper<LocalTime> departure;
+    private final ReadOnlyObjectWrapper<LocalTime> arrival;
+    private final ReadOnlyObjectWrapper<Long> duration;
+    private final ReadOnlyObjectWrapper<Double> price;
+    private final ReadOnlyObjectWrapper<Integer> availableSeats;
+    private final String departureText;
+    private final String arrivalText;
+    private final String durationText;
+    private final String priceText;
+    private String seatsText;
+    private Route route;
+
+    RouteRow(Route route) {
+        this.route = route;
+        this.departure = new ReadOnlyObjectWrapper<>(route.getDepartureTime());
+        this.arrival = new ReadOnlyObjectWrapper<>(route.getArrivalTime());
+        this.duration = new ReadOnlyObjectWrapper<>(route.getDurationMinutes());
+        this.price = new ReadOnlyObjectWrapper<>(route.getPrice());
+        this.availableSeats = new ReadOnlyObjectWrapper<>(route.getAvailableSeats());
+        this.departureText = route.getDepartureTime().toString();
+        // Arrivals before the departure time are on the next day
+        this.arrivalText = route.getArrivalMinute() < route.getDepartureMinute()
+                ? route.getArrivalTime() + " (+1)" : route.getArrivalTime().toString();
+        this.durationText = route.getDurationString();
+        this.priceText = String.format("%.2f lei", route.getPrice());
+        this.seatsText = formatSeats(route);
+    }
+
+    /**
+     * Gets the route with its latest known seat count.
+     */
+    public Route getRoute() {
+        return route;
+    }
+
+    public ReadOnlyObjectProperty<LocalTime> departureProperty() {
+        return departure.getReadOnlyProperty();
+    }
+
+    public ReadOnlyObjectProperty<LocalTime> arrivalProperty() {
+        return arrival.getReadOnlyProperty();
+    }
+
+    public ReadOnlyObjectProperty<Long> durationProperty() {
+        return duration.getReadOnlyProperty();
+    }
+
+    public ReadOnlyObjectProperty<Double> priceProperty() {
+        return price.getReadOnlyProperty();
+    }
+
+    public ReadOnlyObjectProperty<Integer> availableSeatsProperty() {
+        return availableSeats.getReadOnlyProperty();
+    }
+
+    String getDepartureText() {
+        return departureText;
+    }
+
+    String getArrivalText() {
+        return arrivalText;
+    }
+
+    String getDurationText() {
+        return durationText;
+    }
+
+    String getPriceText() {
+        return priceText;
+    }
+
+    String getSeatsText() {
+        return seatsText;
+    }
+
+    /**
+     * Checks whether this row can show the given version of its route,
+     * that is whether only the seat count differs.
+     */
+    boolean hasSameSchedule(Route other) {
+        return route.getId() == other.getId()
+                && route.getDepartureMinute() == other.getDepartureMinute()
+                && route.getArrivalMinute() == other.getArrivalMinute()
+                && route.getTotalSeats() == other.getTotalSeats()
+                && route.getPrice() == other.getPrice();
+    }
+
+    /**
+     * Updates the seat count in place; the seats cell repaints itself.
+     *
+     * @return false if the count did not change
+     */
+    boolean setAvailableSeats(int seats) {
+        if (seats == route.getAvailableSeats()) {
+            return false;
+        }
+        route = route.withAvailableSeats(seats);
+        seatsText = formatSeats(route);  // Before the property fires, so the cell reads the new text
+        availableSeats.set(seats);
+        return true;
+    }
+
+    private static String formatSeats(Route route) {
+        return route.getAvailableSeats() + " / " + route.getTotalSeats();
+    }
+}
@@ -0,0 +1,113 @@
+package com.buscompany.controller;
+
+import com.buscompany.model.Route;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Virtualized table of routes with typed, sortable columns: departure,
+ * arrival, duration, available seats and price.
+ *
+ * The columns and cells are created once and reused for every route list
+ * shown. Cells display the text their {@link RouteRow} formatted when it
+ * was created, so scrolling formats nothing. Seat changes update the
+ * matching rows in place ({@link #updateSeats(Map)}), leaving the items
+ * list, the scroll position and the selection alone. Rows are reused when
+ * the same route is shown again with the same schedule.
+ *
+ * Usable from FXML; only touch it on the FX Application Thread.
+ */
+public class RouteTableView extends TableView<RouteRow> {
+    private static final double ROW_HEIGHT = 26;
+
+    private Map<Integer, RouteRow> rowsById = new HashMap<>();
+
+    public RouteTableView() {
+        setFixedCellSize(ROW_HEIGHT); // Lets the virtual flow skip measuring each row
+        setColumnResizePolicy(CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+        setPlaceholder(new Label("Select a source and destination city"));
+        getColumns().add(column("Departure", RouteRow::departureProperty, RouteRow::getDepartureText));
+        getColumns().add(column("Arrival", RouteRow::arrivalProperty, RouteRow::getArrivalText));
+        getColumns().add(column("Duration", RouteRow::durationProperty, RouteRow::getDurationText));
+        getColumns().add(column("Seats", RouteRow::availableSeatsProperty, RouteRow::getSeatsText));
+        getColumns().add(column("Price", RouteRow::priceProperty, RouteRow::getPriceText));
+    }
+
+    /**
+     * Shows a new list of routes, keeping the current sort order.
+     */
+    public void setRoutes(List<Route> routes) {
+        Map<Integer, RouteRow> rows = new HashMap<>(routes.size() * 2);
+        List<RouteRow> items = new ArrayList<>(routes.size());
+        for (Route route : routes) {
+            RouteRow row = rowsById.get(route.getId());
+            if (row == null || !row.hasSameSchedule(route)) {
+                row = new RouteRow(route);
+            } else {
+                row.setAvailableSeats(route.getAvailableSeats());
+            }
+            rows.put(route.getId(), row);
+            items.add(row);
+        }
+        rowsById = rows;
+        getItems().setAll(items);
+        if (!getSortOrder().isEmpty()) {
+            sort();
+        }
+    }
+
+    /**
+     * Applies new seat counts to the rows of the given routes; routes not
+     * shown are ignored.
+     *
+     * @return true if a shown row changed
+     */
+    public boolean updateSeats(Map<Integer, Integer> seatsByRouteId) {
+        boolean changed = false;
+        for (Map.Entry<Integer, Integer> entry : seatsByRouteId.entrySet()) {
+            RouteRow row = rowsById.get(entry.getKey());
+            if (row != null && row.setAvailableSeats(entry.getValue())) {
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private static <T> TableColumn<RouteRow, T> column(String title,
+                                                       Function<RouteRow, ObservableValue<T>> value,
+                                                       Function<RouteRow, String> text) {
+        TableColumn<RouteRow, T> column = new TableColumn<>(title);
+        column.setCellValueFactory(features -> value.apply(features.getValue()));
+        column.setCellFactory(c -> new CachedTextCell<>(text));
+        return column;
+    }
+
+    /**
+     * Cell showing its row's preformatted text instead of formatting the value.
+     */
+    private static final class CachedTextCell<T> extends TableCell<RouteRow, T> {
+        private final Function<RouteRow, String> text;
+
+        CachedTextCell(Function<RouteRow, String> text) {
+            this.text = text;
+        }
+
+        @Override
+        protected void updateItem(T value, boolean empty) {
+            super.updateItem(value, empty);
+            List<RouteRow> items = getTableView() == null ? null : getTableView().getItems();
+            int index = getIndex();
+            setText(empty || value == null || items == null || index < 0 || index >= items.size()
+                    ? null : text.apply(items.get(index)));
+        }
+    }
+}
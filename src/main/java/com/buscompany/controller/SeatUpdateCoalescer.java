@@ -0,0 +1,84 @@
+package com.buscompany.controller;
+
+import com.buscompany.service.RouteService;
+import javafx.application.Platform;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects seat changes from service threads and applies them on the FX
+ * thread in one batch.
+ *
+ * Only the newest change per route is kept, and at most one flush is queued
+ * on the FX thread (with {@code Platform.runLater}) at a time, so the
+ * changes of a burst of bookings that arrive before it runs are applied in
+ * a single UI update per window.
+ *
+ * Versions are remembered only for the routes the window currently shows
+ * ({@link #retainRoutes(Collection)}), so the memory used does not grow
+ * with the number of routes ever shown.
+ */
+public class SeatUpdateCoalescer implements RouteService.SeatChangeListener {
+    private final ConcurrentMap<Integer, long[]> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Map<Integer, Long> appliedVersions = new HashMap<>(); // FX thread only
+    private Set<Integer> routeIds = Set.of(); // FX thread only
+    private final SeatUpdateHandler handler;
+
+    /**
+     * Receives the coalesced changes on the FX Application Thread.
+     */
+    public interface SeatUpdateHandler {
+        /**
+         * @param seatsByRouteId latest available seats for every changed route
+         */
+        void applySeatUpdates(Map<Integer, Integer> seatsByRouteId);
+    }
+
+    public SeatUpdateCoalescer(SeatUpdateHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Limits the updates to the given routes, the ones the window is
+     * subscribed to, and forgets the versions and pending changes of all
+     * other routes. Call on the FX Application Thread.
+     */
+    public void retainRoutes(Collection<Integer> routeIds) {
+        this.routeIds = new HashSet<>(routeIds);
+        appliedVersions.keySet().retainAll(this.routeIds);
+        pending.keySet().retainAll(this.routeIds);
+    }
+
+    @Override
+    public void onSeatsChanged(int routeId, int availableSeats, long version) {
+        // Keep the highest version; changes can arrive out of order from different threads
+        pending.merge(routeId, new long[] {version, availableSeats},
+                (current, update) -> update[0] > current[0] ? update : current);
+        if (flushScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::flush);
+        }
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        Map<Integer, Integer> batch = new HashMap<>();
+        for (Integer routeId : pending.keySet()) {
+            long[] change = pending.remove(routeId);
+            if (change != null && routeIds.contains(routeId) && change[0] > appliedVersions.getOrDefault(routeId, Long.MIN_VALUE)) {
+                appliedVersions.put(routeId, change[0]);
+                batch.put(routeId, (int) change[1]);
+            }
+        }
+        if (!batch.isEmpty()) {
+            handler.applySeatUpdates(batch);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.buscompany.model;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Domain model representing a trip made of one or more consecutive routes.
+ *
+ * A journey contains information about:
+ * - The legs (routes) in travel order
+ * - Overall departure and arrival times
+ * - Number of transfers and total ticket price
+ */
+public class Journey {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final List<Route> legs;
+    private final int[] departureDays;
+
+    /**
+     * Creates a journey whose every leg takes the first bus leaving at or
+     * after the previous leg's arrival, on the next day if need be.
+     */
+    public Journey(List<Route> legs) {
+        this(legs, chainedDays(legs));
+    }
+
+    /**
+     * @param departureDays for each leg, the day it departs on, counted from
+     *                      the first leg's departure day (0)
+     */
+    public Journey(List<Route> legs, int[] departureDays) {
+        if (legs.isEmpty()) {
+            throw new IllegalArgumentException("A journey needs at least one leg");
+        }
+        if (departureDays.length != legs.size() || departureDays[0] != 0) {
+            throw new IllegalArgumentException("Need one departure day per leg, starting at 0");
+        }
+        this.legs = Collections.unmodifiableList(List.copyOf(legs));
+        this.departureDays = departureDays.clone();
+    }
+
+    private static int[] chainedDays(List<Route> legs) {
+        int[] days = new int[legs.size()];
+        if (legs.isEmpty()) {
+            return days;
+        }
+        long clock = legs.get(0).getDepartureMinute();
+        for (int i = 0; i < legs.size(); i++) {
+            Route leg = legs.get(i);
+            clock += Math.floorMod(leg.getDepartureMinute() - clock, MINUTES_PER_DAY);
+            days[i] = (int) (clock / MINUTES_PER_DAY);
+            clock += leg.getDurationMinutes();
+        }
+        return days;
+    }
+
+    public List<Route> getLegs() {
+        return legs;
+    }
+
+    public String getSourceCity() {
+        return legs.get(0).getSourceCity();
+    }
+
+    public String getDestinationCity() {
+        return legs.get(legs.size() - 1).getDestinationCity();
+    }
+
+    public LocalTime getDepartureTime() {
+        return legs.get(0).getDepartureTime();
+    }
+
+    public LocalTime getArrivalTime() {
+        return legs.get(legs.size() - 1).getArrivalTime();
+    }
+
+    /**
+     * Gets the number of bus changes on the way.
+     */
+    public int getTransferCount() {
+        return legs.size() - 1;
+    }
+
+    /**
+     * Gets the price of one ticket for every leg.
+     */
+    public double getTotalPrice() {
+        return legs.stream().mapToDouble(Route::getPrice).sum();
+    }
+
+    /**
+     * Gets the day a leg departs on, counted from the first leg's departure
+     * day (0).
+     */
+    public int getDepartureDay(int leg) {
+        return departureDays[leg];
+    }
+
+    /**
+     * Calculates the total travel time in minutes, including waiting time,
+     * from the first departure to the last leg's arrival on the days the
+     * legs actually run, so journeys past midnight (even more than a day
+     * long) come out positive.
+     */
+    public long getDurationMinutes() {
+        int last = legs.size() - 1;
+        Route lastLeg = legs.get(last);
+        long arrival = (long) departureDays[last] * MINUTES_PER_DAY + lastLeg.getDepartureMinute()
+                + lastLeg.getDurationMinutes();
+        return arrival - legs.get(0).getDepartureMinute();
+    }
+
+    /**
+     * Formats duration as HH:mm string.
+     */
+    public String getDurationString() {
+        return Route.formatDuration(getDurationMinutes());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Journey journey = (Journey) o;
+        return legs.equals(journey.legs) && Arrays.equals(departureDays, journey.departureDays);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * legs.hashCode() + Arrays.hashCode(departureDays);
+    }
+
+    @Override
+    public String toString() {
+        return legs.stream()
+                .map(leg -> String.format("%s %s→%s %s", leg.getSourceCity(), leg.getDepartureTime(),
+                        leg.getArrivalTime(), leg.getDestinationCity()))
+                .collect(Collectors.joining(" | "));
+    }
+}
@@ -10,13 +10,34 @@ import java.util.Objects;
  * - Source and destination cities
  * - Departure and arrival times
  * - Available seats and ticket price
+ *
+ * Times are also kept as minutes since midnight, with the duration worked
+ * out once when the route is created. Routes arriving before their
+ * departure time arrive the next day; an arrival at the departure time is
+ * a zero-minute trip, never a 24-hour one. LocalTime objects and duration
+ * strings come from shared tables (one entry per minute of the day), so
+ * creating a route from stored minutes allocates nothing but the route.
  */
 public class Route {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final LocalTime[] TIMES = new LocalTime[MINUTES_PER_DAY];
+    private static final String[] DURATIONS = new String[MINUTES_PER_DAY];
+
+    static {
+        for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+            TIMES[minute] = LocalTime.of(minute / 60, minute % 60);
+            DURATIONS[minute] = String.format("%02d:%02d", minute / 60, minute % 60);
+        }
+    }
+
     private int id;
     private String sourceCity;
     private String destinationCity;
     private LocalTime departureTime;
     private LocalTime arrivalTime;
+    private final int departureMinute;
+    private final int arrivalMinute;
+    private final int durationMinutes;
     private int totalSeats;
     private int availableSeats;
     private double price;
@@ -29,11 +50,60 @@ public class Route {
         this.destinationCity = destinationCity;
         this.departureTime = departureTime;
         this.arrivalTime = arrivalTime;
+        this.departureMinute = minuteOfDay(departureTime);
+        this.arrivalMinute = minuteOfDay(arrivalTime);
+        this.durationMinutes = durationMinutes(departureMinute, arrivalMinute);
         this.totalSeats = totalSeats;
         this.availableSeats = availableSeats;
         this.price = price;
     }
 
+    /**
+     * Creates a route from times in minutes since midnight (0 to 1439), as
+     * they are stored.
+     */
+    public Route(int id, String sourceCity, String destinationCity,
+                 int departureMinute, int arrivalMinute,
+                 int totalSeats, int availableSeats, double price) {
+        this.id = id;
+        this.sourceCity = sourceCity;
+        this.destinationCity = destinationCity;
+        this.departureTime = TIMES[departureMinute];
+        this.arrivalTime = TIMES[arrivalMinute];
+        this.departureMinute = departureMinute;
+        this.arrivalMinute = arrivalMinute;
+        this.durationMinutes = durationMinutes(departureMinute, arrivalMinute);
+        this.totalSeats = totalSeats;
+        this.availableSeats = availableSeats;
+        this.price = price;
+    }
+
+    /**
+     * Converts a time to minutes since midnight; seconds are dropped.
+     */
+    public static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    /**
+     * Gets the travel time between two minutes of the day; an arrival before
+     * the departure is on the next day, one at the departure takes 0 minutes.
+     * The journey planner and the route list apply the same rule.
+     */
+    public static int durationMinutes(int departureMinute, int arrivalMinute) {
+        return (arrivalMinute - departureMinute + MINUTES_PER_DAY) % MINUTES_PER_DAY;
+    }
+
+    /**
+     * Formats a number of minutes as HH:mm; hours may exceed 23.
+     */
+    public static String formatDuration(long minutes) {
+        if (minutes >= 0 && minutes < MINUTES_PER_DAY) {
+            return DURATIONS[(int) minutes];
+        }
+        return String.format("%02d:%02d", minutes / 60, minutes % 60);
+    }
+
     // Getters
     public int getId() {
         return id;
@@ -55,6 +125,20 @@ public class Route {
         return arrivalTime;
     }
 
+    /**
+     * Gets the departure time in minutes since midnight.
+     */
+    public int getDepartureMinute() {
+        return departureMinute;
+    }
+
+    /**
+     * Gets the arrival time in minutes since midnight.
+     */
+    public int getArrivalMinute() {
+        return arrivalMinute;
+    }
+
     public int getTotalSeats() {
         return totalSeats;
     }
@@ -73,20 +157,26 @@ public class Route {
     }
 
     /**
-     * Calculates the duration of the route in minutes.
+     * Creates a copy of this route with a different number of available seats.
+     * Used where routes are shared between readers and must not be mutated.
+     */
+    public Route withAvailableSeats(int availableSeats) {
+        return new Route(id, sourceCity, destinationCity, departureTime, arrivalTime,
+                totalSeats, availableSeats, price);
+    }
+
+    /**
+     * Gets the duration of the route in minutes.
      */
     public long getDurationMinutes() {
-        return java.time.temporal.ChronoUnit.MINUTES.between(departureTime, arrivalTime);
+        return durationMinutes;
     }
 
     /**
      * Formats duration as HH:mm string.
      */
     public String getDurationString() {
-        long minutes = getDurationMinutes();
-        long hours = minutes / 60;
-        long mins = minutes % 60;
-        return String.format("%02d:%02d", hours, mins);
+        return DURATIONS[durationMinutes];
     }
 
     @Override
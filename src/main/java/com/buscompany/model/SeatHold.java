@@ -0,0 +1,52 @@
+package com.buscompany.model;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Domain model representing seats held on a route while the customer pays.
+ *
+ * A hold contains information about:
+ * - Its ID, an unguessable token used to confirm or release it
+ * - The route and the held seat numbers
+ * - When it expires if neither confirmed nor released
+ */
+public class SeatHold {
+    private final String id;
+    private final int routeId;
+    private final int[] seatNumbers;
+    private final Instant expiresAt;
+
+    public SeatHold(String id, int routeId, int[] seatNumbers, Instant expiresAt) {
+        this.id = id;
+        this.routeId = routeId;
+        this.seatNumbers = seatNumbers.clone();
+        this.expiresAt = expiresAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getRouteId() {
+        return routeId;
+    }
+
+    public int[] getSeatNumbers() {
+        return seatNumbers.clone();
+    }
+
+    public int getSeatCount() {
+        return seatNumbers.length;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    @Override
+    public String toString() {
+        return "Hold " + id + " on route " + routeId + ", seats " + Arrays.toString(seatNumbers)
+                + ", expires " + expiresAt;
+    }
+}
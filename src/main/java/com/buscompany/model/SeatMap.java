@@ -0,0 +1,294 @@
+package com.buscompany.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Occupancy of the seats of one route as a bitmap.
+ *
+ * Seats are numbered from 1. Seat n is bit (n - 1) of a long[]; a set bit
+ * means the seat is taken. Searches and range updates work a 64-bit word
+ * at a time (masks and trailing-zero counts) instead of seat by seat.
+ *
+ * Not thread-safe; callers synchronize on the map.
+ */
+public class SeatMap {
+    /**
+     * Most seats a route may have. Far above any bus, but it keeps a bad
+     * seat count from turning into a bitmap of hundreds of megabytes that
+     * every seat write would load and store.
+     */
+    public static final int MAX_SEATS = 10_000;
+
+    private final int seatCount;
+    private final long[] words;
+
+    public SeatMap(int seatCount) {
+        this(seatCount, new long[(checkSeatCount(seatCount) + 63) >>> 6]);
+    }
+
+    private SeatMap(int seatCount, long[] words) {
+        this.seatCount = seatCount;
+        this.words = words;
+    }
+
+    /**
+     * Creates a map for a route booked before seat maps existed: the first
+     * {@code totalSeats - availableSeats} seats are marked taken.
+     */
+    public static SeatMap withFirstSeatsTaken(int totalSeats, int availableSeats) {
+        SeatMap map = new SeatMap(totalSeats);
+        int taken = Math.max(0, Math.min(totalSeats, totalSeats - availableSeats));
+        if (taken > 0) {
+            map.setRange(0, taken, true);
+        }
+        return map;
+    }
+
+    /**
+     * Restores a map stored with {@link #toBytes()}.
+     */
+    public static SeatMap fromBytes(int seatCount, byte[] bytes) {
+        long[] words = new long[(checkSeatCount(seatCount) + 63) >>> 6];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < words.length && buffer.remaining() >= Long.BYTES; i++) {
+            words[i] = buffer.getLong();
+        }
+        if (words.length > 0) {
+            words[words.length - 1] &= lastWordMask(seatCount);
+        }
+        return new SeatMap(seatCount, words);
+    }
+
+    /**
+     * Serializes the map as little-endian longs (one bit per seat).
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(words.length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (long word : words) {
+            buffer.putLong(word);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Creates an independent copy of the map.
+     */
+    public SeatMap copy() {
+        return new SeatMap(seatCount, words.clone());
+    }
+
+    public int getSeatCount() {
+        return seatCount;
+    }
+
+    public int getFreeCount() {
+        int taken = 0;
+        for (long word : words) {
+            taken += Long.bitCount(word);
+        }
+        return seatCount - taken;
+    }
+
+    public boolean isTaken(int seatNumber) {
+        int bit = seatNumber - 1;
+        return (words[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Finds the lowest-numbered run of {@code count} adjacent free seats.
+     *
+     * Skips whole words that are full, and within a word jumps from run to
+     * run with trailing-zero counts.
+     *
+     * @return the first seat number of the run, or -1 if there is none
+     */
+    public int findAdjacentFree(int count) {
+        if (count <= 0 || count > seatCount) {
+            return -1;
+        }
+        int runStart = 0;
+        int runLength = 0;
+        for (int w = 0; w < words.length; w++) {
+            long free = ~words[w] & (w == words.length - 1 ? lastWordMask(seatCount) : -1L);
+            if (free == -1L) {
+                if (runLength == 0) {
+                    runStart = w << 6;
+                }
+                runLength += 64;
+            } else if (free == 0) {
+                runLength = 0;
+            } else {
+                int bit = 0;
+                while (bit < 64) {
+                    long rest = free >>> bit;
+                    if (rest == 0) {
+                        runLength = 0;
+                        break;
+                    }
+                    int takenBits = Long.numberOfTrailingZeros(rest);
+                    if (takenBits > 0) {
+                        runLength = 0;
+                        bit += takenBits;
+                        continue;
+                    }
+                    int freeBits = Math.min(Long.numberOfTrailingZeros(~rest), 64 - bit);
+                    if (runLength == 0) {
+                        runStart = (w << 6) + bit;
+                    }
+                    runLength += freeBits;
+                    if (runLength >= count) {
+                        return runStart + 1;
+                    }
+                    bit += freeBits;
+                    if (bit < 64) {
+                        runLength = 0; // Run ends inside this word
+                    }
+                }
+            }
+            if (runLength >= count) {
+                return runStart + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Takes {@code count} seats, adjacent if possible, otherwise the
+     * lowest-numbered free ones.
+     *
+     * @return the seat numbers taken, or null if not enough seats are free
+     */
+    public int[] allocate(int count) {
+        if (count <= 0 || count > getFreeCount()) {
+            return null;
+        }
+        int first = findAdjacentFree(count);
+        if (first > 0) {
+            setRange(first - 1, count, true);
+            int[] seats = new int[count];
+            for (int i = 0; i < count; i++) {
+                seats[i] = first + i;
+            }
+            return seats;
+        }
+
+        int[] seats = new int[count];
+        int found = 0;
+        for (int w = 0; w < words.length && found < count; w++) {
+            long free = ~words[w] & (w == words.length - 1 ? lastWordMask(seatCount) : -1L);
+            while (free != 0 && found < count) {
+                long lowest = free & -free;
+                seats[found++] = (w << 6) + Long.numberOfTrailingZeros(lowest) + 1;
+                words[w] |= lowest;
+                free ^= lowest;
+            }
+        }
+        return seats;
+    }
+
+    /**
+     * Takes exactly the given seats if all of them are free; otherwise
+     * changes nothing.
+     *
+     * @return true if the seats were taken
+     */
+    public boolean book(int[] seatNumbers) {
+        long[] masks = masksOf(seatNumbers);
+        if (masks == null) {
+            return false;
+        }
+        for (int w = 0; w < words.length; w++) {
+            if ((words[w] & masks[w]) != 0) {
+                return false;
+            }
+        }
+        for (int w = 0; w < words.length; w++) {
+            words[w] |= masks[w];
+        }
+        return true;
+    }
+
+    /**
+     * Marks the given seats taken, whether or not they were free; used to
+     * replay bookings that were validated when they were made.
+     */
+    public void occupy(int[] seatNumbers) {
+        long[] masks = masksOf(seatNumbers);
+        if (masks == null) {
+            return;
+        }
+        for (int w = 0; w < words.length; w++) {
+            words[w] |= masks[w];
+        }
+    }
+
+    /**
+     * Frees the given seats.
+     */
+    public void release(int[] seatNumbers) {
+        long[] masks = masksOf(seatNumbers);
+        if (masks == null) {
+            return;
+        }
+        for (int w = 0; w < words.length; w++) {
+            words[w] &= ~masks[w];
+        }
+    }
+
+    /**
+     * Builds per-word bit masks for seat numbers; null if a number is out
+     * of range or repeated.
+     */
+    private long[] masksOf(int[] seatNumbers) {
+        long[] masks = new long[words.length];
+        for (int seatNumber : seatNumbers) {
+            if (seatNumber < 1 || seatNumber > seatCount) {
+                return null;
+            }
+            int bit = seatNumber - 1;
+            long mask = 1L << bit;
+            if ((masks[bit >>> 6] & mask) != 0) {
+                return null;
+            }
+            masks[bit >>> 6] |= mask;
+        }
+        return masks;
+    }
+
+    /**
+     * Sets or clears {@code length} bits starting at bit {@code from},
+     * a whole word at a time.
+     */
+    private void setRange(int from, int length, boolean taken) {
+        int to = from + length; // exclusive
+        int firstWord = from >>> 6;
+        int lastWord = (to - 1) >>> 6;
+        for (int w = firstWord; w <= lastWord; w++) {
+            long mask = -1L;
+            if (w == firstWord) {
+                mask &= -1L << from;
+            }
+            if (w == lastWord) {
+                mask &= -1L >>> -to;
+            }
+            words[w] = taken ? words[w] | mask : words[w] & ~mask;
+        }
+    }
+
+    private static int checkSeatCount(int seatCount) {
+        if (seatCount < 0 || seatCount > MAX_SEATS) {
+            throw new IllegalArgumentException("Seat count out of range: " + seatCount);
+        }
+        return seatCount;
+    }
+
+    private static long lastWordMask(int seatCount) {
+        return -1L >>> -seatCount; // Low (seatCount % 64) bits, or all 64
+    }
+
+    @Override
+    public String toString() {
+        return "SeatMap[" + (seatCount - getFreeCount()) + "/" + seatCount + " taken]";
+    }
+}
@@ -0,0 +1,271 @@
+package com.buscompany.repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of seat changes in memory-mapped segment files.
+ *
+ * Every record gets the next sequence number and is written straight into
+ * the mapped page cache, so an append is a short memory copy with no
+ * system call; the OS writes the pages back on its own, and they survive a
+ * crash of the JVM. With {@code force} every append is also flushed to the
+ * device before it returns.
+ *
+ * Segments are files named {@code bookings-<first sequence>.journal},
+ * preallocated to a fixed size. A record is
+ * {@code [int length][int crc32c][long sequence][byte type][int routeId][short count][int seat]*}
+ * where length and CRC cover everything after the CRC. Reading stops at the
+ * first zero length or bad checksum, so a record torn by a crash is
+ * dropped and overwritten by the next append.
+ *
+ * Appends are serialized by the journal's monitor; not meant to be shared
+ * between processes.
+ */
+public class BookingJournal implements AutoCloseable {
+    public static final byte BOOKED = 1;
+    public static final byte RELEASED = 2;
+
+    private static final String PREFIX = "bookings-";
+    private static final String SUFFIX = ".journal";
+    private static final int HEADER_BYTES = 8;
+    private static final int FIXED_BODY_BYTES = 8 + 1 + 4 + 2;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean force;
+    private final List<Segment> segments = new ArrayList<>();
+    private MappedByteBuffer active; // guarded by this
+    private long lastSequence;        // guarded by this
+
+    /**
+     * Opens the journal in a directory, creating it if needed, and finds
+     * the end of the existing records.
+     *
+     * @param segmentSize bytes per segment file
+     * @param force       flush every append to the device before returning
+     */
+    public BookingJournal(Path directory, int segmentSize, boolean force) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.force = force;
+        Files.createDirectories(directory);
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long firstSequence = Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+                segments.add(new Segment(file, firstSequence));
+            }
+        }
+        segments.sort((a, b) -> Long.compare(a.firstSequence, b.firstSequence));
+
+        if (segments.isEmpty()) {
+            active = openSegment(1);
+        } else {
+            Segment last = segments.get(segments.size() - 1);
+            active = map(last.file);
+            lastSequence = last.firstSequence - 1;
+            scan(active, record -> lastSequence = record.sequence);
+        }
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @return the sequence number of the record
+     * @throws IOException if a new segment could not be created or flushed
+     */
+    public synchronized long append(byte type, int routeId, int[] seatNumbers) throws IOException {
+        int bodyBytes = FIXED_BODY_BYTES + seatNumbers.length * Integer.BYTES;
+        int recordBytes = HEADER_BYTES + bodyBytes;
+        if (recordBytes > segmentSize - Integer.BYTES) {
+            throw new IOException("Record of " + recordBytes + " bytes does not fit a journal segment");
+        }
+        if (active.remaining() < recordBytes + Integer.BYTES) { // Keep room for the zero end marker
+            rollSegment();
+        }
+
+        long sequence = lastSequence + 1;
+        int start = active.position();
+        active.position(start + HEADER_BYTES);
+        active.putLong(sequence);
+        active.put(type);
+        active.putInt(routeId);
+        active.putShort((short) seatNumbers.length);
+        for (int seat : seatNumbers) {
+            active.putInt(seat);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(active.duplicate().position(start + HEADER_BYTES).limit(start + recordBytes));
+        // Length last: a reader never sees a length without its body
+        active.putInt(start + Integer.BYTES, (int) crc.getValue());
+        active.putInt(start, bodyBytes);
+        if (force) {
+            active.force(start, recordBytes);
+        }
+        lastSequence = sequence;
+        return sequence;
+    }
+
+    /**
+     * Gets the sequence number of the last appended record, 0 if none.
+     */
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Reads every record with a sequence number above {@code afterSequence}, in order.
+     *
+     * @return number of records passed to the handler
+     */
+    public long replay(long afterSequence, RecordHandler handler) throws IOException {
+        List<Segment> toRead = new ArrayList<>();
+        synchronized (this) {
+            for (int i = 0; i < segments.size(); i++) {
+                boolean hasLater = i + 1 < segments.size();
+                if (!hasLater || segments.get(i + 1).firstSequence > afterSequence + 1) {
+                    toRead.add(segments.get(i));
+                }
+            }
+        }
+        long[] count = new long[1];
+        for (Segment segment : toRead) {
+            scan(map(segment.file), record -> {
+                if (record.sequence > afterSequence) {
+                    handler.onRecord(record.sequence, record.type, record.routeId, record.seatNumbers);
+                    count[0]++;
+                }
+            });
+        }
+        return count[0];
+    }
+
+    /**
+     * Deletes the segments whose records all have sequence numbers up to
+     * {@code sequence}. The active segment is always kept.
+     *
+     * @return number of segments deleted
+     */
+    public synchronized int deleteUpTo(long sequence) {
+        int deleted = 0;
+        while (segments.size() > 1 && segments.get(1).firstSequence - 1 <= sequence) {
+            try {
+                Files.deleteIfExists(segments.get(0).file);
+                segments.remove(0);
+                deleted++;
+            } catch (IOException e) {
+                e.printStackTrace();
+                break;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Flushes the active segment to the device.
+     */
+    public synchronized void force() {
+        active.force();
+    }
+
+    /**
+     * Gets the number of segment files on disk.
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        active.force();
+    }
+
+    private void rollSegment() throws IOException {
+        active.force();
+        active = openSegment(lastSequence + 1);
+    }
+
+    private MappedByteBuffer openSegment(long firstSequence) throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", PREFIX, firstSequence, SUFFIX));
+        segments.add(new Segment(file, firstSequence));
+        return map(file);
+    }
+
+    private MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Mapping past the end grows the file; the mapping outlives the channel
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSize, channel.size()));
+        }
+    }
+
+    /**
+     * Reads the valid records of a segment and leaves the buffer positioned
+     * after the last one.
+     */
+    private static void scan(ByteBuffer buffer, RecordConsumer consumer) {
+        buffer.position(0);
+        CRC32C crc = new CRC32C();
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int start = buffer.position();
+            int bodyBytes = buffer.getInt(start);
+            if (bodyBytes < FIXED_BODY_BYTES || bodyBytes > buffer.limit() - start - HEADER_BYTES) {
+                break; // End of records, or a torn length
+            }
+            crc.reset();
+            crc.update(buffer.duplicate().position(start + HEADER_BYTES).limit(start + HEADER_BYTES + bodyBytes));
+            if ((int) crc.getValue() != buffer.getInt(start + Integer.BYTES)) {
+                break; // Torn record
+            }
+            buffer.position(start + HEADER_BYTES);
+            Record record = new Record();
+            record.sequence = buffer.getLong();
+            record.type = buffer.get();
+            record.routeId = buffer.getInt();
+            record.seatNumbers = new int[buffer.getShort()];
+            for (int i = 0; i < record.seatNumbers.length; i++) {
+                record.seatNumbers[i] = buffer.getInt();
+            }
+            consumer.accept(record);
+        }
+    }
+
+    /**
+     * Receives replayed records.
+     */
+    public interface RecordHandler {
+        void onRecord(long sequence, byte type, int routeId, int[] seatNumbers);
+    }
+
+    private interface RecordConsumer {
+        void accept(Record record);
+    }
+
+    private static final class Record {
+        long sequence;
+        byte type;
+        int routeId;
+        int[] seatNumbers;
+    }
+
+    private static final class Segment {
+        final Path file;
+        final long firstSequence;
+
+        Segment(Path file, long firstSequence) {
+            this.file = file;
+            this.firstSequence = firstSequence;
+        }
+    }
+}
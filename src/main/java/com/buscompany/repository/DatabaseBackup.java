@@ -0,0 +1,383 @@
+package com.buscompany.repository;
+
+import com.buscompany.util.AppConfig;
+import com.buscompany.util.ConcurrencyUtils;
+import com.buscompany.util.DatabaseUtils;
+import com.buscompany.util.LatencyHistogram;
+import com.buscompany.util.PerformanceMetrics;
+import com.buscompany.util.PerformanceMetrics.Operation;
+import org.sqlite.SQLiteConnection;
+import org.sqlite.SQLiteErrorCode;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Online backups of the application database, taken while bookings go on,
+ * compressed and rotated.
+ *
+ * The live database is read with SQLite's backup API on a dedicated
+ * connection outside the pool. In WAL mode that connection opens a read
+ * transaction first and keeps it for the whole copy, so every page comes
+ * from one snapshot: the copy is consistent, writers in this and other
+ * processes carry on (only checkpoints wait behind the snapshot), and their
+ * commits never make the copy restart. Pages are copied a few at a time
+ * with a short pause between steps, so the copy takes little I/O away
+ * from bookings. In other journal modes a reader blocks commits, so the
+ * database is copied in a single step instead.
+ *
+ * The copy is gzipped in one streaming pass into a temporary file that is
+ * synced and renamed into place, so a backup file is always complete. The
+ * oldest backups beyond the retention count, and those older than the
+ * retention age, are then deleted.
+ *
+ * Each run returns a {@link Report} with the copy and compression
+ * throughput and the booking latency while it ran, next to the latency
+ * since the previous run.
+ */
+public class DatabaseBackup {
+    private static final DateTimeFormatter TIMESTAMP =
+            DateTimeFormatter.ofPattern("uuuuMMdd-HHmmss-SSS").withZone(ZoneOffset.UTC);
+    private static final String SUFFIX = ".db.gz";
+    private static final String PARTIAL_SUFFIX = ".partial";
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Busy retries of one backup step; with WAL a step only waits for a checkpoint
+    private static final int BUSY_SLEEP_MILLIS = 50;
+    private static final int BUSY_RETRIES = 100;
+
+    private final Path directory;
+    private final String baseName;
+    private final long intervalMinutes;
+    private final int pagesPerStep;
+    private final long stepPauseMillis;
+    private final int retentionCount;
+    private final long retentionMillis;
+    private final int busyTimeoutMillis = AppConfig.getInt("database.pragma.busy-timeout-ms", 5000);
+    private final Object runLock = new Object();
+    private ScheduledExecutorService scheduler;  // guarded by this
+    private long[] lastBookingCounts;            // guarded by runLock
+
+    /**
+     * Outcome of one backup.
+     */
+    public static final class Report {
+        private final Path file;
+        private final long databaseBytes;
+        private final long compressedBytes;
+        private final int pages;
+        private final long copyNanos;
+        private final long compressNanos;
+        private final BookingLatency bookingsBefore;
+        private final BookingLatency bookingsDuring;
+
+        Report(Path file, long databaseBytes, long compressedBytes, int pages, long copyNanos, long compressNanos,
+               BookingLatency bookingsBefore, BookingLatency bookingsDuring) {
+            this.file = file;
+            this.databaseBytes = databaseBytes;
+            this.compressedBytes = compressedBytes;
+            this.pages = pages;
+            this.copyNanos = copyNanos;
+            this.compressNanos = compressNanos;
+            this.bookingsBefore = bookingsBefore;
+            this.bookingsDuring = bookingsDuring;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public long getDatabaseBytes() {
+            return databaseBytes;
+        }
+
+        public long getCompressedBytes() {
+            return compressedBytes;
+        }
+
+        public int getPages() {
+            return pages;
+        }
+
+        /**
+         * Gets the database bytes copied per second by the backup API.
+         */
+        public double getCopyBytesPerSecond() {
+            return databaseBytes * 1e9 / Math.max(1, copyNanos);
+        }
+
+        /**
+         * Gets the database bytes compressed per second.
+         */
+        public double getCompressBytesPerSecond() {
+            return databaseBytes * 1e9 / Math.max(1, compressNanos);
+        }
+
+        /**
+         * Gets the booking latency since the previous backup (or startup),
+         * measured while no backup ran.
+         */
+        public BookingLatency getBookingsBefore() {
+            return bookingsBefore;
+        }
+
+        /**
+         * Gets the booking latency while this backup ran.
+         */
+        public BookingLatency getBookingsDuring() {
+            return bookingsDuring;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Backup %s: %.1f MB (%d pages) copied in %.2f s (%.1f MB/s),"
+                            + " gzipped to %.1f MB in %.2f s (%.1f MB/s); bookings during backup %s,"
+                            + " before %s, p99 %+.0f µs",
+                    file.getFileName(), databaseBytes / 1e6, pages, copyNanos / 1e9,
+                    getCopyBytesPerSecond() / 1e6, compressedBytes / 1e6, compressNanos / 1e9,
+                    getCompressBytesPerSecond() / 1e6, bookingsDuring, bookingsBefore,
+                    (bookingsDuring.getP99Nanos() - bookingsBefore.getP99Nanos()) / 1e3);
+        }
+    }
+
+    /**
+     * Booking latency over a period, from the {@code BOOK_TICKETS} histogram.
+     */
+    public static final class BookingLatency {
+        private final long count;
+        private final long p50Nanos;
+        private final long p99Nanos;
+
+        BookingLatency(long[] before, long[] after) {
+            this.count = LatencyHistogram.countBetween(before, after);
+            this.p50Nanos = LatencyHistogram.percentileBetween(before, after, 50);
+            this.p99Nanos = LatencyHistogram.percentileBetween(before, after, 99);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getP50Nanos() {
+            return p50Nanos;
+        }
+
+        public long getP99Nanos() {
+            return p99Nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("p50 %.0f µs / p99 %.0f µs over %d calls", p50Nanos / 1e3, p99Nanos / 1e3, count);
+        }
+    }
+
+    public DatabaseBackup() {
+        this(Path.of(AppConfig.getString("database.backup.directory", "bus_booking-backups")),
+                AppConfig.getLong("database.backup.interval-minutes", 0),
+                AppConfig.getInt("database.backup.pages-per-step", 256),
+                AppConfig.getLong("database.backup.step-pause-ms", 5),
+                AppConfig.getInt("database.backup.retention-count", 24),
+                AppConfig.getLong("database.backup.retention-hours", 168));
+    }
+
+    public DatabaseBackup(Path directory, long intervalMinutes, int pagesPerStep, long stepPauseMillis,
+                          int retentionCount, long retentionHours) {
+        this.directory = directory;
+        this.intervalMinutes = intervalMinutes;
+        this.pagesPerStep = Math.max(1, pagesPerStep);
+        this.stepPauseMillis = Math.max(0, stepPauseMillis);
+        this.retentionCount = Math.max(1, retentionCount);
+        this.retentionMillis = TimeUnit.HOURS.toMillis(Math.max(0, retentionHours));
+        String databaseName = Path.of(AppConfig.getString("database.name", "bus_booking.db")).getFileName().toString();
+        this.baseName = databaseName.endsWith(".db")
+                ? databaseName.substring(0, databaseName.length() - 3) : databaseName;
+        this.lastBookingCounts = bookingLatencies().copyCounts();
+    }
+
+    /**
+     * Starts taking a backup every interval; does nothing if the interval
+     * is 0. The first backup is taken one interval after startup.
+     */
+    public synchronized void start() {
+        if (scheduler != null || intervalMinutes <= 0) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(ConcurrencyUtils.daemonThreadFactory("database-backup"));
+        scheduler.scheduleWithFixedDelay(this::backupQuietly, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Stops the schedule. A backup in progress is abandoned with the process;
+     * its temporary files never replace a backup.
+     */
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void backupQuietly() {
+        try {
+            System.out.println(backup());
+        } catch (SQLException | IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Takes a backup now, then applies the retention settings. Runs one
+     * backup at a time.
+     */
+    public Report backup() throws SQLException, IOException {
+        synchronized (runLock) {
+            long start = System.nanoTime();
+            LatencyHistogram bookings = bookingLatencies();
+            long[] bookingsAtStart = bookings.copyCounts();
+            String name = baseName + "-" + TIMESTAMP.format(Instant.now());
+            Path copy = directory.resolve(name + ".db" + PARTIAL_SUFFIX);
+            Path compressed = directory.resolve(name + SUFFIX + PARTIAL_SUFFIX);
+            Path target = directory.resolve(name + SUFFIX);
+            try {
+                Files.createDirectories(directory);
+                int pages = copyDatabase(copy);
+                long copied = System.nanoTime();
+                long databaseBytes = Files.size(copy);
+                compress(copy, compressed);
+                Files.move(compressed, target, StandardCopyOption.ATOMIC_MOVE);
+                long end = System.nanoTime();
+
+                long[] bookingsAtEnd = bookings.copyCounts();
+                Report report = new Report(target, databaseBytes, Files.size(target), pages,
+                        copied - start, end - copied,
+                        new BookingLatency(lastBookingCounts, bookingsAtStart),
+                        new BookingLatency(bookingsAtStart, bookingsAtEnd));
+                lastBookingCounts = bookingsAtEnd;
+                applyRetention(target);
+                return report;
+            } catch (SQLException | IOException | RuntimeException e) {
+                PerformanceMetrics.recordError(Operation.DATABASE_BACKUP);
+                throw e;
+            } finally {
+                Files.deleteIfExists(copy);
+                Files.deleteIfExists(compressed);
+                PerformanceMetrics.record(Operation.DATABASE_BACKUP, start);
+            }
+        }
+    }
+
+    private static LatencyHistogram bookingLatencies() {
+        return PerformanceMetrics.getInstance().getLatency(Operation.BOOK_TICKETS);
+    }
+
+    /**
+     * Copies the live database to a file with the backup API.
+     *
+     * @return the number of pages copied
+     */
+    private int copyDatabase(Path copy) throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("transaction_mode", "DEFERRED"); // The snapshot must not take the write lock
+        try (Connection conn = DriverManager.getConnection(DatabaseUtils.getDatabaseUrl(), properties);
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + busyTimeoutMillis);
+            boolean wal;
+            try (ResultSet rs = stmt.executeQuery("PRAGMA journal_mode")) {
+                wal = rs.next() && "wal".equalsIgnoreCase(rs.getString(1));
+            }
+            conn.setAutoCommit(false);
+            try {
+                if (wal) {
+                    // The first read starts the transaction; every step copies from its snapshot
+                    stmt.executeQuery("SELECT COUNT(*) FROM sqlite_master").close();
+                }
+                int[] pages = new int[1];
+                int rc = conn.unwrap(SQLiteConnection.class).getDatabase().backup("main", copy.toString(),
+                        (remaining, pageCount) -> {
+                            pages[0] = pageCount;
+                            if (remaining > 0) {
+                                pauseBetweenSteps();
+                            }
+                        }, BUSY_SLEEP_MILLIS, BUSY_RETRIES, wal ? pagesPerStep : -1);
+                if (rc != SQLiteErrorCode.SQLITE_OK.code) {
+                    throw new SQLException("Backup failed with SQLite result code " + rc);
+                }
+                return pages[0];
+            } finally {
+                conn.rollback();
+            }
+        }
+    }
+
+    private void pauseBetweenSteps() {
+        if (stepPauseMillis == 0) {
+            return;
+        }
+        try {
+            Thread.sleep(stepPauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gzips a file in one streaming pass and syncs the result to the device.
+     */
+    private static void compress(Path source, Path target) throws IOException {
+        try (InputStream in = Files.newInputStream(source);
+             FileOutputStream file = new FileOutputStream(target.toFile());
+             GZIPOutputStream gzip = new GZIPOutputStream(new BufferedOutputStream(file, BUFFER_SIZE), BUFFER_SIZE)) {
+            in.transferTo(gzip);
+            gzip.finish();
+            gzip.flush();
+            file.getFD().sync(); // Complete on disk before it is renamed into place
+        }
+    }
+
+    /**
+     * Deletes the backups beyond the retention count and those older than
+     * the retention age, never the one just taken.
+     */
+    private void applyRetention(Path latest) throws IOException {
+        List<Path> backups = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, baseName + "-*" + SUFFIX)) {
+            for (Path file : files) {
+                backups.add(file);
+            }
+        }
+        backups.sort(Comparator.comparing(Path::toString).reversed()); // Newest first: names sort by time
+        long oldest = System.currentTimeMillis() - retentionMillis;
+        for (int i = 0; i < backups.size(); i++) {
+            Path file = backups.get(i);
+            if (file.equals(latest)) {
+                continue;
+            }
+            if (i >= retentionCount
+                    || (retentionMillis > 0 && Files.getLastModifiedTime(file).toMillis() < oldest)) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
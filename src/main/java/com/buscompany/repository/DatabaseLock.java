@@ -0,0 +1,98 @@
+package com.buscompany.repository;
+
+import com.buscompany.util.AppConfig;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Claim on the application database, held by a process for as long as it
+ * books seats in it.
+ *
+ * With booking.persistence=journal a process keeps the seat counts in its
+ * own journal and overwrites the routes table at every snapshot, so it must
+ * be the only process using the database. It takes an exclusive lock on a
+ * file next to the database; processes committing to the database take a
+ * shared lock on the same file. Whichever comes second fails to start, so a
+ * journaling process never shares the database with another instance.
+ *
+ * The operating system releases the lock when the process exits, so a
+ * crash never leaves the database claimed. Claims taken within one process
+ * share one lock: several database-mode services may run side by side, but
+ * a journaling one must be alone there too.
+ */
+public final class DatabaseLock implements AutoCloseable {
+    private static final Path LOCK_FILE = Path.of(AppConfig.getString("database.name", "bus_booking.db") + ".lock");
+
+    private static FileChannel channel;
+    private static FileLock lock;
+    private static int holders;
+
+    private boolean closed;
+
+    private DatabaseLock() {
+    }
+
+    /**
+     * Claims the database for this process.
+     *
+     * @param exclusive true for sole use (journal mode), false to share it
+     *                  with other processes committing to the database
+     * @throws IllegalStateException if another claim conflicts with this one
+     */
+    public static synchronized DatabaseLock acquire(boolean exclusive) throws IOException {
+        if (holders > 0) {
+            if (exclusive || !lock.isShared()) {
+                throw new IllegalStateException("The database is already in use by this process;"
+                        + " booking.persistence=journal needs sole use of it");
+            }
+            holders++;
+            return new DatabaseLock();
+        }
+        FileChannel opened = FileChannel.open(LOCK_FILE,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileLock acquired;
+        try {
+            acquired = opened.tryLock(0, Long.MAX_VALUE, !exclusive);
+        } catch (IOException | RuntimeException e) {
+            opened.close();
+            throw e;
+        }
+        if (acquired == null) {
+            opened.close();
+            throw new IllegalStateException(exclusive
+                    ? "The database is in use by another process; booking.persistence=journal needs sole use of it"
+                    : "The database is in use by a process with booking.persistence=journal");
+        }
+        channel = opened;
+        lock = acquired;
+        holders = 1;
+        return new DatabaseLock();
+    }
+
+    /**
+     * Gives up this claim; the lock is released with the last claim.
+     */
+    @Override
+    public void close() {
+        synchronized (DatabaseLock.class) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (--holders == 0) {
+                try {
+                    lock.release();
+                    channel.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                lock = null;
+                channel = null;
+            }
+        }
+    }
+}
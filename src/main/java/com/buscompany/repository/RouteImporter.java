@@ -0,0 +1,412 @@
+package com.buscompany.repository;
+
+import com.buscompany.model.Route;
+import com.buscompany.model.SeatMap;
+import com.buscompany.util.AppConfig;
+import com.buscompany.util.DatabaseUtils;
+import com.buscompany.util.PooledConnection;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming bulk importer for route timetables in CSV format.
+ *
+ * The file is read one line at a time, so memory use does not depend on its
+ * size. Valid rows are inserted with JDBC batching inside large
+ * transactions; each commit also stores a checkpoint (lines processed) in
+ * the import_progress table, so an interrupted or crashed import resumes
+ * after the last committed row when started again on the same file.
+ * Checkpoints are keyed on the file's content fingerprint (size, modification
+ * time and a hash of its first block, header included), so a file replaced
+ * in place is never resumed at another file's line, and only unfinished
+ * imports are resumed: importing a file again after it completed starts over.
+ *
+ * The first line is a header naming the columns, in any order:
+ * source_city, destination_city, departure_time, arrival_time,
+ * total_seats (at most {@link SeatMap#MAX_SEATS}), available_seats
+ * (optional, defaults to total_seats), price.
+ * Common aliases (from, to, departure, arrival, seats) are accepted.
+ */
+public class RouteImporter {
+    private static final String SELECT_PROGRESS_SQL =
+            "SELECT lines_processed, rows_imported, rows_rejected, completed FROM import_progress WHERE file_key = ?";
+    private static final String SAVE_PROGRESS_SQL = "INSERT OR REPLACE INTO import_progress " +
+            "(file_key, lines_processed, rows_imported, rows_rejected, completed) VALUES (?, ?, ?, ?, ?)";
+    private static final int MAX_REPORTED_ERRORS = 20;
+    private static final int FINGERPRINT_BLOCK_SIZE = 64 * 1024;
+
+    private static final String[] COLUMNS = {
+            "source_city", "destination_city", "departure_time", "arrival_time", "total_seats", "available_seats", "price"
+    };
+    private static final Map<String, String> COLUMN_ALIASES = Map.of(
+            "source", "source_city", "from", "source_city",
+            "destination", "destination_city", "to", "destination_city",
+            "departure", "departure_time", "arrival", "arrival_time",
+            "seats", "total_seats", "available", "available_seats");
+
+    private final int batchSize;
+    private final int transactionSize;
+
+    /**
+     * Receives progress reports while an import runs.
+     */
+    public interface ProgressListener {
+        void onProgress(ImportProgress progress);
+    }
+
+    public RouteImporter() {
+        this(AppConfig.getInt("import.batch-size", 1000), AppConfig.getInt("import.transaction-size", 50000));
+    }
+
+    public RouteImporter(int batchSize, int transactionSize) {
+        this.batchSize = Math.max(1, batchSize);
+        this.transactionSize = Math.max(this.batchSize, transactionSize);
+    }
+
+    /**
+     * Imports a CSV file, resuming a previous interrupted run if there is one.
+     * Stops early (after rolling back the uncommitted rows) if the calling
+     * thread is interrupted; running it again resumes from the checkpoint.
+     *
+     * @return the final progress; {@link ImportProgress#isCompleted()} tells
+     *         whether the whole file was processed
+     */
+    public ImportProgress importFile(Path file, ProgressListener listener) throws IOException, SQLException {
+        long totalBytes = Files.size(file);
+        String fileKey = fingerprint(file, totalBytes);
+
+        try (PooledConnection conn = DatabaseUtils.getConnection();
+             CountingInputStream in = new CountingInputStream(Files.newInputStream(file));
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16)) {
+
+            ImportProgress progress = loadProgress(conn, fileKey, totalBytes);
+
+            String header = reader.readLine();
+            if (header == null) {
+                progress.completed = true;
+                return progress;
+            }
+            int[] columnIndexes = mapColumns(parseCsvLine(header));
+
+            // Skip what an earlier run already committed
+            long line = 1;
+            while (line < progress.linesProcessed && reader.readLine() != null) {
+                line++;
+            }
+            progress.linesProcessed = line;
+
+            conn.setAutoCommit(false);
+            PreparedStatement insert = conn.prepareStatement(RouteRepository.INSERT_ROUTE_SQL);
+            int pendingInBatch = 0;
+            int pendingInTransaction = 0;
+            String text;
+            while ((text = reader.readLine()) != null) {
+                if (Thread.currentThread().isInterrupted()) {
+                    conn.rollback();
+                    return progress; // Resumes from the last checkpoint next time
+                }
+                line++;
+                if (!text.isBlank()) {
+                    String error = bindRow(insert, parseCsvLine(text), columnIndexes);
+                    if (error == null) {
+                        insert.addBatch();
+                        pendingInBatch++;
+                    } else {
+                        progress.reject(line, error);
+                    }
+                }
+                pendingInTransaction++;
+
+                if (pendingInBatch >= batchSize) {
+                    insert.executeBatch();
+                    progress.rowsImported += pendingInBatch;
+                    pendingInBatch = 0;
+                }
+                if (pendingInTransaction >= transactionSize) {
+                    insert.executeBatch();
+                    progress.rowsImported += pendingInBatch;
+                    pendingInBatch = 0;
+                    pendingInTransaction = 0;
+                    progress.linesProcessed = line;
+                    progress.bytesRead = in.getCount();
+                    saveProgress(conn, fileKey, progress);
+                    conn.commit();
+                    listener.onProgress(progress);
+                }
+            }
+
+            insert.executeBatch();
+            progress.rowsImported += pendingInBatch;
+            progress.linesProcessed = line;
+            progress.bytesRead = totalBytes;
+            progress.completed = true;
+            saveProgress(conn, fileKey, progress);
+            conn.commit();
+            listener.onProgress(progress);
+            return progress;
+        }
+    }
+
+    private ImportProgress loadProgress(PooledConnection conn, String fileKey, long totalBytes) throws SQLException {
+        ImportProgress progress = new ImportProgress(totalBytes);
+        PreparedStatement pstmt = conn.prepareStatement(SELECT_PROGRESS_SQL);
+        pstmt.setString(1, fileKey);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            // A completed import of the same content is imported again from the start
+            if (rs.next() && rs.getInt(4) == 0) {
+                progress.linesProcessed = rs.getLong(1);
+                progress.rowsImported = rs.getLong(2);
+                progress.rowsRejected = rs.getLong(3);
+                progress.resumed = true;
+            }
+        }
+        return progress;
+    }
+
+    private void saveProgress(PooledConnection conn, String fileKey, ImportProgress progress) throws SQLException {
+        PreparedStatement pstmt = conn.prepareStatement(SAVE_PROGRESS_SQL);
+        pstmt.setString(1, fileKey);
+        pstmt.setLong(2, progress.linesProcessed);
+        pstmt.setLong(3, progress.rowsImported);
+        pstmt.setLong(4, progress.rowsRejected);
+        pstmt.setInt(5, progress.completed ? 1 : 0);
+        pstmt.executeUpdate();
+    }
+
+    /**
+     * Identifies a file by its content rather than its path: size, last
+     * modification time and a SHA-256 of the first block, which holds the
+     * header and the first rows.
+     */
+    private static String fingerprint(Path file, long size) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // Every JRE provides SHA-256
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            digest.update(in.readNBytes(FINGERPRINT_BLOCK_SIZE));
+        }
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        return size + ":" + modified + ":" + HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Maps each known column to its position in the header.
+     */
+    private static int[] mapColumns(List<String> header) throws IOException {
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim().toLowerCase(Locale.ROOT).replace(' ', '_');
+            positions.putIfAbsent(COLUMN_ALIASES.getOrDefault(name, name), i);
+        }
+        int[] indexes = new int[COLUMNS.length];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            Integer position = positions.get(COLUMNS[i]);
+            if (position == null && !COLUMNS[i].equals("available_seats")) {
+                throw new IOException("Missing column in CSV header: " + COLUMNS[i]);
+            }
+            indexes[i] = position == null ? -1 : position;
+        }
+        return indexes;
+    }
+
+    /**
+     * Validates a row and binds it to the insert statement.
+     *
+     * @return null if the row is valid, otherwise the reason it was rejected
+     */
+    private static String bindRow(PreparedStatement insert, List<String> fields, int[] columns) throws SQLException {
+        String source = field(fields, columns[0]);
+        String destination = field(fields, columns[1]);
+        if (source.isEmpty() || destination.isEmpty()) {
+            return "missing city";
+        }
+        if (source.equals(destination)) {
+            return "source and destination are the same";
+        }
+
+        LocalTime departure;
+        LocalTime arrival;
+        int totalSeats;
+        int availableSeats;
+        double price;
+        try {
+            departure = LocalTime.parse(field(fields, columns[2]));
+            arrival = LocalTime.parse(field(fields, columns[3]));
+            totalSeats = Integer.parseInt(field(fields, columns[4]));
+            String available = field(fields, columns[5]);
+            availableSeats = available.isEmpty() ? totalSeats : Integer.parseInt(available);
+            price = Double.parseDouble(field(fields, columns[6]));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return "invalid value: " + e.getMessage();
+        }
+        if (totalSeats <= 0 || totalSeats > SeatMap.MAX_SEATS || availableSeats < 0 || availableSeats > totalSeats) {
+            return "invalid seat counts";
+        }
+        if (price < 0 || Double.isNaN(price) || Double.isInfinite(price)) {
+            return "invalid price";
+        }
+
+        RouteRepository.bindRoute(insert, source, destination, Route.minuteOfDay(departure),
+                Route.minuteOfDay(arrival), totalSeats, availableSeats, price);
+        return null;
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index < 0 || index >= fields.size() ? "" : fields.get(index).trim();
+    }
+
+    /**
+     * Splits a CSV line, honouring double-quoted fields with "" escapes.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    /**
+     * Progress of an import run.
+     */
+    public static class ImportProgress {
+        private final long totalBytes;
+        private final List<String> errors = new ArrayList<>();
+        private long bytesRead;
+        private long linesProcessed;
+        private long rowsImported;
+        private long rowsRejected;
+        private boolean completed;
+        private boolean resumed;
+
+        ImportProgress(long totalBytes) {
+            this.totalBytes = totalBytes;
+        }
+
+        void reject(long line, String reason) {
+            rowsRejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("line " + line + ": " + reason);
+            }
+        }
+
+        public long getRowsImported() {
+            return rowsImported;
+        }
+
+        public long getRowsRejected() {
+            return rowsRejected;
+        }
+
+        public long getLinesProcessed() {
+            return linesProcessed;
+        }
+
+        /**
+         * Gets the first few rejection reasons of this run.
+         */
+        public List<String> getErrors() {
+            return errors;
+        }
+
+        /**
+         * Gets the share of the file processed so far, from 0 to 1.
+         */
+        public double getFraction() {
+            return totalBytes == 0 ? 1.0 : Math.min(1.0, (double) bytesRead / totalBytes);
+        }
+
+        public boolean isCompleted() {
+            return completed;
+        }
+
+        /**
+         * Returns true if this run continued from an earlier checkpoint.
+         */
+        public boolean isResumed() {
+            return resumed;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.0f%% - %d routes imported, %d rejected%s",
+                    getFraction() * 100, rowsImported, rowsRejected, completed ? " (done)" : "");
+        }
+    }
+
+    /**
+     * Counts the bytes read, for progress reporting.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
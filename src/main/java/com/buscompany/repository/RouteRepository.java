@@ -1,30 +1,158 @@
 package com.buscompany.repository;
 
 import com.buscompany.model.Route;
+import com.buscompany.model.SeatMap;
+import com.buscompany.util.DatabaseUtils;
+import com.buscompany.util.PerformanceMetrics;
+import com.buscompany.util.PerformanceMetrics.Operation;
+import com.buscompany.util.PooledConnection;
 import java.sql.*;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Repository layer for database access to Route entities.
  * 
  * Handles all CRUD operations and queries for routes:
- * - Connection management
  * - Database initialization
  * - Route retrieval and updates
  * 
- * Uses SQLite with JDBC driver.
+ * Uses SQLite with JDBC driver. Connections are borrowed from the shared
+ * pool in {@link DatabaseUtils}; prepared statements are cached per
+ * connection, so only result sets are closed here.
+ *
+ * Every query records its latency and errors in {@link PerformanceMetrics}.
  */
 public class RouteRepository {
-    private static final String DB_URL = "jdbc:sqlite:bus_booking.db";
     private static final String ROUTES_TABLE = "routes";
 
+    /**
+     * Schema migrations, applied in order. Entry i upgrades the schema from
+     * version i to i + 1; the current version is kept in PRAGMA user_version.
+     * New databases are created at version 0 and go through every entry, so
+     * fresh and upgraded files always end up with the same schema.
+     */
+    private static final String[][] SCHEMA_MIGRATIONS = {
+            // 1: composite index for city lookups and per-pair departure ordering
+            {"CREATE INDEX IF NOT EXISTS idx_routes_source_destination_departure ON " + ROUTES_TABLE +
+                    " (source_city, destination_city, departure_time)"},
+            // 2: checkpoints of bulk imports, so an interrupted import can resume
+            {"CREATE TABLE IF NOT EXISTS import_progress (" +
+                    "file_key TEXT PRIMARY KEY," +
+                    "lines_processed INTEGER NOT NULL," +
+                    "rows_imported INTEGER NOT NULL," +
+                    "rows_rejected INTEGER NOT NULL," +
+                    "completed INTEGER NOT NULL DEFAULT 0" +
+                    ")"},
+            // 3: keyset pagination of the main route list
+            {"CREATE INDEX IF NOT EXISTS idx_routes_source_departure_id ON " + ROUTES_TABLE +
+                    " (source_city, departure_time, id)"},
+            // 4: per-seat occupancy bitmaps
+            {"CREATE TABLE IF NOT EXISTS route_seat_maps (" +
+                    "route_id INTEGER PRIMARY KEY REFERENCES " + ROUTES_TABLE + "(id)," +
+                    "seats BLOB NOT NULL" +
+                    ")"},
+            // 5: feed of committed seat changes, tailed by other processes sharing the database
+            {"CREATE TABLE IF NOT EXISTS seat_changes (" +
+                    "seq INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    "route_id INTEGER NOT NULL," +
+                    "instance_id TEXT NOT NULL," +
+                    "seat_delta INTEGER NOT NULL," +
+                    "available_seats INTEGER NOT NULL," +
+                    "seat_numbers TEXT," +
+                    "changed_at INTEGER NOT NULL" +
+                    ")",
+                    "CREATE INDEX IF NOT EXISTS idx_seat_changes_changed_at ON seat_changes (changed_at)"},
+            // 6: times as integer minutes since midnight plus the precomputed duration, instead of
+            // "HH:mm" text. SQLite cannot change column types, so the table is rebuilt in place;
+            // IDs and the AUTOINCREMENT counter are kept, the indexes move to the new columns.
+            {"CREATE TABLE routes_v6 (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    "source_city TEXT NOT NULL," +
+                    "destination_city TEXT NOT NULL," +
+                    "departure_minute INTEGER NOT NULL," +
+                    "arrival_minute INTEGER NOT NULL," +
+                    "duration_minutes INTEGER NOT NULL," +
+                    "total_seats INTEGER NOT NULL," +
+                    "available_seats INTEGER NOT NULL," +
+                    "price REAL NOT NULL" +
+                    ")",
+                    "INSERT INTO routes_v6 (id, source_city, destination_city, departure_minute, arrival_minute," +
+                            " duration_minutes, total_seats, available_seats, price)" +
+                            " SELECT id, source_city, destination_city, departure, arrival," +
+                            " (arrival - departure + 1440) % 1440, total_seats, available_seats, price FROM (" +
+                            "SELECT *," +
+                            " CAST(substr(departure_time, 1, 2) AS INTEGER) * 60" +
+                            " + CAST(substr(departure_time, 4, 2) AS INTEGER) AS departure," +
+                            " CAST(substr(arrival_time, 1, 2) AS INTEGER) * 60" +
+                            " + CAST(substr(arrival_time, 4, 2) AS INTEGER) AS arrival" +
+                            " FROM " + ROUTES_TABLE + ")",
+                    "DELETE FROM sqlite_sequence WHERE name = 'routes_v6'",
+                    "INSERT INTO sqlite_sequence (name, seq)" +
+                            " SELECT 'routes_v6', seq FROM sqlite_sequence WHERE name = '" + ROUTES_TABLE + "'",
+                    "DROP TABLE " + ROUTES_TABLE,
+                    "ALTER TABLE routes_v6 RENAME TO " + ROUTES_TABLE,
+                    "CREATE INDEX idx_routes_source_destination_departure ON " + ROUTES_TABLE +
+                            " (source_city, destination_city, departure_minute)",
+                    "CREATE INDEX idx_routes_source_departure_id ON " + ROUTES_TABLE +
+                            " (source_city, departure_minute, id)"}
+    };
+
+    /**
+     * Columns every route query selects, in the order
+     * {@link #mapResultSetToRoute(ResultSet)} reads them by index.
+     */
+    private static final String ROUTE_COLUMNS = "id, source_city, destination_city, departure_minute," +
+            " arrival_minute, total_seats, available_seats, price";
+
+    private static final String SELECT_ALL_SQL = "SELECT " + ROUTE_COLUMNS + " FROM " + ROUTES_TABLE;
+    // One statement reads one snapshot, so the sequence matches the rows exactly
+    private static final String SCAN_ALL_SQL = "SELECT " + ROUTE_COLUMNS + "," +
+            " (SELECT COALESCE(MAX(seq), 0) FROM seat_changes) FROM " + ROUTES_TABLE;
+    private static final String SELECT_LAST_CHANGE_SQL = "SELECT COALESCE(MAX(seq), 0) FROM seat_changes";
+    private static final String INSERT_SEAT_CHANGE_SQL = "INSERT INTO seat_changes" +
+            " (route_id, instance_id, seat_delta, available_seats, seat_numbers, changed_at)" +
+            " SELECT id, ?, ?, available_seats, ?, ? FROM " + ROUTES_TABLE + " WHERE id = ?";
+    private static final String SELECT_BY_CITIES_SQL = "SELECT " + ROUTE_COLUMNS + " FROM " + ROUTES_TABLE +
+            " WHERE source_city = ? AND destination_city = ?" +
+            " ORDER BY departure_minute";
+    private static final String SELECT_FIRST_PAGE_SQL = "SELECT " + ROUTE_COLUMNS + " FROM " + ROUTES_TABLE +
+            " ORDER BY source_city, departure_minute, id LIMIT ?";
+    private static final String SELECT_PAGE_AFTER_SQL = "SELECT " + ROUTE_COLUMNS + " FROM " + ROUTES_TABLE +
+            " WHERE (source_city, departure_minute, id) > (?, ?, ?)" +
+            " ORDER BY source_city, departure_minute, id LIMIT ?";
+    private static final String COUNT_ROUTES_SQL = "SELECT COUNT(*) FROM " + ROUTES_TABLE;
+    private static final String SELECT_SEAT_COUNT_SQL = "SELECT available_seats," +
+            " (SELECT COALESCE(MAX(seq), 0) FROM seat_changes) FROM " + ROUTES_TABLE + " WHERE id = ?";
+    private static final String SELECT_LAST_INSERT_SQL = "SELECT last_insert_rowid()";
+    private static final String SELECT_BY_ID_SQL = "SELECT " + ROUTE_COLUMNS + " FROM " + ROUTES_TABLE + " WHERE id = ?";
+    private static final String UPDATE_SEATS_SQL = "UPDATE " + ROUTES_TABLE +
+            " SET available_seats = ? WHERE id = ?";
+    /** Also used by {@link RouteImporter}; see {@link #bindRoute}. */
+    static final String INSERT_ROUTE_SQL = "INSERT INTO " + ROUTES_TABLE +
+            " (source_city, destination_city, departure_minute, arrival_minute, duration_minutes," +
+            " total_seats, available_seats, price) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DECREMENT_SEATS_SQL = "UPDATE " + ROUTES_TABLE +
+            " SET available_seats = available_seats - ? WHERE id = ? AND available_seats >= ?";
+    private static final String SELECT_SEAT_MAP_SQL = "SELECT r.total_seats, r.available_seats, m.seats FROM " +
+            ROUTES_TABLE + " r LEFT JOIN route_seat_maps m ON m.route_id = r.id WHERE r.id = ?";
+    private static final String SAVE_SEAT_MAP_SQL = "INSERT INTO route_seat_maps (route_id, seats) VALUES (?, ?)" +
+            " ON CONFLICT(route_id) DO UPDATE SET seats = excluded.seats";
+    private static final String SELECT_SOURCE_CITIES_SQL = "SELECT DISTINCT source_city FROM " + ROUTES_TABLE +
+            " ORDER BY source_city";
+    private static final String SELECT_DESTINATION_CITIES_SQL = "SELECT DISTINCT destination_city FROM " + ROUTES_TABLE +
+            " WHERE source_city = ? ORDER BY destination_city";
+
     /**
      * Initializes the database with tables and sample data on first run.
      */
     public void initializeDatabase() {
-        try (Connection conn = DriverManager.getConnection(DB_URL)) {
+        try (PooledConnection conn = DatabaseUtils.getConnection()) {
             // Create routes table if not exists
             String createTableSQL = "CREATE TABLE IF NOT EXISTS " + ROUTES_TABLE + " (" +
                     "id INTEGER PRIMARY KEY AUTOINCREMENT," +
@@ -40,6 +168,7 @@ public class RouteRepository {
             try (Statement stmt = conn.createStatement()) {
                 stmt.execute(createTableSQL);
             }
+            migrateSchema(conn);
             
             // Insert sample data if table is empty
             String checkSQL = "SELECT COUNT(*) FROM " + ROUTES_TABLE;
@@ -55,14 +184,47 @@ public class RouteRepository {
     }
 
     /**
-     * Inserts sample route data for testing.
+     * Brings the schema up to date by applying the pending migrations,
+     * each in its own transaction together with the version bump.
      */
-    private void insertSampleData(Connection conn) {
-        String insertSQL = "INSERT INTO " + ROUTES_TABLE + 
-                " (source_city, destination_city, departure_time, arrival_time, total_seats, available_seats, price) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private void migrateSchema(PooledConnection conn) throws SQLException {
+        int version;
+        try (Statement stmt = conn.createStatement()) {
+            version = readSchemaVersion(stmt);
+        }
 
-        try (PreparedStatement pstmt = conn.prepareStatement(insertSQL)) {
+        for (int target = version; target < SCHEMA_MIGRATIONS.length; target++) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                // Checked again inside the write transaction: another process may have just migrated
+                if (readSchemaVersion(stmt) <= target) {
+                    for (String sql : SCHEMA_MIGRATIONS[target]) {
+                        stmt.execute(sql);
+                    }
+                    stmt.execute("PRAGMA user_version = " + (target + 1));
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static int readSchemaVersion(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Inserts sample route data for testing.
+     */
+    private void insertSampleData(PooledConnection conn) {
+        try {
+            PreparedStatement pstmt = conn.prepareStatement(INSERT_ROUTE_SQL);
             // Sample routes
             insertRoute(pstmt, "Bucharest", "Brașov", "08:00", "10:30", 40, 40, 50.0);
             insertRoute(pstmt, "Bucharest", "Brașov", "14:00", "16:30", 40, 40, 50.0);
@@ -81,49 +243,200 @@ public class RouteRepository {
     private void insertRoute(PreparedStatement pstmt, String source, String dest,
                             String departure, String arrival, int total, int available, double price)
             throws SQLException {
-        pstmt.setString(1, source);
-        pstmt.setString(2, dest);
-        pstmt.setString(3, departure);
-        pstmt.setString(4, arrival);
-        pstmt.setInt(5, total);
-        pstmt.setInt(6, available);
-        pstmt.setDouble(7, price);
+        bindRoute(pstmt, source, dest, Route.minuteOfDay(LocalTime.parse(departure)),
+                Route.minuteOfDay(LocalTime.parse(arrival)), total, available, price);
         pstmt.executeUpdate();
     }
 
+    /**
+     * Sets the parameters of {@link #INSERT_ROUTE_SQL}, including the
+     * precomputed duration.
+     */
+    static void bindRoute(PreparedStatement pstmt, String source, String destination, int departureMinute,
+                          int arrivalMinute, int total, int available, double price) throws SQLException {
+        pstmt.setString(1, source);
+        pstmt.setString(2, destination);
+        pstmt.setInt(3, departureMinute);
+        pstmt.setInt(4, arrivalMinute);
+        pstmt.setInt(5, Route.durationMinutes(departureMinute, arrivalMinute));
+        pstmt.setInt(6, total);
+        pstmt.setInt(7, available);
+        pstmt.setDouble(8, price);
+    }
+
+    /**
+     * Inserts a new route and returns it with its generated ID,
+     * or null if the insert failed.
+     */
+    public Route addRoute(Route route) {
+        long start = System.nanoTime();
+        try (PooledConnection conn = DatabaseUtils.getConnection()) {
+            PreparedStatement pstmt = conn.prepareStatement(INSERT_ROUTE_SQL);
+            bindRoute(pstmt, route.getSourceCity(), route.getDestinationCity(),
+                    route.getDepartureMinute(), route.getArrivalMinute(),
+                    route.getTotalSeats(), route.getAvailableSeats(), route.getPrice());
+            pstmt.executeUpdate();
+
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT last_insert_rowid()")) {
+                if (rs.next()) {
+                    return new Route(rs.getInt(1), route.getSourceCity(), route.getDestinationCity(),
+                            route.getDepartureMinute(), route.getArrivalMinute(),
+                            route.getTotalSeats(), route.getAvailableSeats(), route.getPrice());
+                }
+            }
+        } catch (SQLException e) {
+            PerformanceMetrics.recordError(Operation.ADD_ROUTE);
+            e.printStackTrace();
+        } finally {
+            PerformanceMetrics.record(Operation.ADD_ROUTE, start);
+        }
+        return null;
+    }
+
     /**
      * Retrieves all routes from the database.
      */
     public List<Route> getAllRoutes() {
+        long start = System.nanoTime();
         List<Route> routes = new ArrayList<>();
-        String query = "SELECT * FROM " + ROUTES_TABLE;
         
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
+        try (PooledConnection conn = DatabaseUtils.getConnection();
+             ResultSet rs = conn.prepareStatement(SELECT_ALL_SQL).executeQuery()) {
             
             while (rs.next()) {
                 routes.add(mapResultSetToRoute(rs));
             }
         } catch (SQLException e) {
+            PerformanceMetrics.recordError(Operation.GET_ALL_ROUTES);
             e.printStackTrace();
+        } finally {
+            PerformanceMetrics.record(Operation.GET_ALL_ROUTES, start);
         }
         
         return routes;
     }
 
+    /**
+     * Streams every route to a handler as primitive columns, without
+     * creating Route objects. Used to load the in-memory route table.
+     *
+     * @return the sequence number of the last {@code seat_changes} entry the
+     *         scanned seat counts include (0 if there is none), or -1 if the
+     *         scan failed
+     */
+    public long scanAllRoutes(RouteRowHandler handler) {
+        long start = System.nanoTime();
+        long changeSequence = -1;
+        try (PooledConnection conn = DatabaseUtils.getConnection();
+             ResultSet rs = conn.prepareStatement(SCAN_ALL_SQL).executeQuery()) {
+            while (rs.next()) {
+                if (changeSequence < 0) {
+                    changeSequence = rs.getLong(9);
+                }
+                // Column order of ROUTE_COLUMNS
+                handler.accept(
+                        rs.getInt(1),
+                        rs.getString(2),
+                        rs.getString(3),
+                        rs.getInt(4),
+                        rs.getInt(5),
+                        rs.getInt(6),
+                        rs.getInt(7),
+                        rs.getDouble(8));
+            }
+            if (changeSequence < 0) {
+                changeSequence = getLastSeatChangeSequence(conn); // No routes
+            }
+        } catch (SQLException e) {
+            PerformanceMetrics.recordError(Operation.GET_ALL_ROUTES);
+            e.printStackTrace();
+        } finally {
+            PerformanceMetrics.record(Operation.GET_ALL_ROUTES, start);
+        }
+        return changeSequence;
+    }
+
+    /**
+     * Gets the sequence number of the newest {@code seat_changes} entry, or 0.
+     */
+    public long getLastSeatChangeSequence() throws SQLException {
+        try (PooledConnection conn = DatabaseUtils.getConnection()) {
+            return getLastSeatChangeSequence(conn);
+        }
+    }
+
+    private long getLastSeatChangeSequence(PooledConnection conn) throws SQLException {
+        try (ResultSet rs = conn.prepareStatement(SELECT_LAST_CHANGE_SQL).executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Retrieves one page of routes ordered by source city, departure time
+     * and ID, using keyset pagination: the page starts right after the
+     * given route, so the cost does not grow with the page number.
+     *
+     * @param after the last route of the previous page, or null for the first page
+     */
+    public List<Route> getRoutesPage(Route after, int limit) {
+        long start = System.nanoTime();
+        List<Route> routes = new ArrayList<>(limit);
+
+        try (PooledConnection conn = DatabaseUtils.getConnection()) {
+            PreparedStatement pstmt;
+            if (after == null) {
+                pstmt = conn.prepareStatement(SELECT_FIRST_PAGE_SQL);
+                pstmt.setInt(1, limit);
+            } else {
+                pstmt = conn.prepareStatement(SELECT_PAGE_AFTER_SQL);
+                pstmt.setString(1, after.getSourceCity());
+                pstmt.setInt(2, after.getDepartureMinute());
+                pstmt.setInt(3, after.getId());
+                pstmt.setInt(4, limit);
+            }
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    routes.add(mapResultSetToRoute(rs));
+                }
+            }
+        } catch (SQLException e) {
+            PerformanceMetrics.recordError(Operation.GET_ROUTES_PAGE);
+            e.printStackTrace();
+        } finally {
+            PerformanceMetrics.record(Operation.GET_ROUTES_PAGE, start);
+        }
+
+        return routes;
+    }
+
+    /**
+     * Counts all routes, or returns -1 if the query failed.
+     */
+    public int countRoutes() {
+        long start = System.nanoTime();
+        try (PooledConnection conn = DatabaseUtils.getConnection();
+             ResultSet rs = conn.prepareStatement(COUNT_ROUTES_SQL).executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            PerformanceMetrics.recordError(Operation.COUNT_ROUTES);
+            e.printStackTrace();
+            return -1;
+        } finally {
+            PerformanceMetrics.record(Operation.COUNT_ROUTES, start);
+        }
+    }
+
     /**
      * Retrieves routes matching source and destination cities.
      */
     public List<Route> getRoutesBySourceAndDestination(String source, String destination) {
+        long start = System.nanoTime();
         List<Route> routes = new ArrayList<>();
-        String query = "SELECT * FROM " + ROUTES_TABLE + 
-                " WHERE source_city = ? AND destination_city = ?" +
-                " ORDER BY departure_time";
         
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            
+        try (PooledConnection conn = DatabaseUtils.getConnection()) {
+            PreparedStatement pstmt = conn.prepareStatement(SELECT_BY_CITIES_SQL);
             pstmt.setString(1, source);
             pstmt.setString(2, destination);
             
@@ -133,7 +446,10 @@ public class RouteRepository {
                 }
             }
         } catch (SQLException e) {
+            PerformanceMetrics.recordError(Operation.GET_ROUTES_BY_CITIES);
             e.printStackTrace();
+        } finally {
+            PerformanceMetrics.record(Operation.GET_ROUTES_BY_CITIES, start);
         }
         
         return routes;
@@ -143,11 +459,9 @@ public class RouteRepository {
      * Retrieves a route by its ID.
      */
     public Route getRouteById(int id) {
-        String query = "SELECT * FROM " + ROUTES_TABLE + " WHERE id = ?";
-        
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            
+        long start = System.nanoTime();
+        try (PooledConnection conn = DatabaseUtils.getConnection()) {
+            PreparedStatement pstmt = conn.prepareStatement(SELECT_BY_ID_SQL);
             pstmt.setInt(1, id);
             
             try (ResultSet rs = pstmt.executeQuery()) {
@@ -156,47 +470,258 @@ public class RouteRepository {
                 }
             }
         } catch (SQLException e) {
+            PerformanceMetrics.recordError(Operation.GET_ROUTE_BY_ID);
             e.printStackTrace();
+        } finally {
+            PerformanceMetrics.record(Operation.GET_ROUTE_BY_ID, start);
         }
         
         return null;
     }
 
+    /**
+     * Available seats of a route together with the sequence number of the
+     * last {@code seat_changes} entry they include.
+     */
+    public static final class SeatCount {
+        private final int availableSeats;
+        private final long changeSequence;
+
+        SeatCount(int availableSeats, long changeSequence) {
+            this.availableSeats = availableSeats;
+            this.changeSequence = changeSequence;
+        }
+
+        public int getAvailableSeats() {
+            return availableSeats;
+        }
+
+        public long getChangeSequence() {
+            return changeSequence;
+        }
+    }
+
+    /**
+     * Reads the stored available seats of a route and the feed position
+     * they include, in one statement so both come from the same snapshot.
+     *
+     * @return the seat count, or null if the route does not exist or the read failed
+     */
+    public SeatCount getSeatCount(int routeId) {
+        long start = System.nanoTime();
+        try (PooledConnection conn = DatabaseUtils.getConnection()) {
+            PreparedStatement pstmt = conn.prepareStatement(SELECT_SEAT_COUNT_SQL);
+            pstmt.setInt(1, routeId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return new SeatCount(rs.getInt(1), rs.getLong(2));
+                }
+            }
+        } catch (SQLException e) {
+            PerformanceMetrics.recordError(Operation.GET_ROUTE_BY_ID);
+            e.printStackTrace();
+        } finally {
+            PerformanceMetrics.record(Operation.GET_ROUTE_BY_ID, start);
+        }
+        return null;
+    }
+
     /**
      * Updates the available seats for a route.
      */
     public void updateAvailableSeats(int routeId, int newAvailableSeats) {
-        String update = "UPDATE " + ROUTES_TABLE + 
-                " SET available_seats = ? WHERE id = ?";
-        
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement pstmt = conn.prepareStatement(update)) {
-            
+        long start = System.nanoTime();
+        try (PooledConnection conn = DatabaseUtils.getConnection()) {
+            PreparedStatement pstmt = conn.prepareStatement(UPDATE_SEATS_SQL);
             pstmt.setInt(1, newAvailableSeats);
             pstmt.setInt(2, routeId);
             pstmt.executeUpdate();
         } catch (SQLException e) {
+            PerformanceMetrics.recordError(Operation.UPDATE_AVAILABLE_SEATS);
+            e.printStackTrace();
+        } finally {
+            PerformanceMetrics.record(Operation.UPDATE_AVAILABLE_SEATS, start);
+        }
+    }
+
+    /**
+     * Applies several conditional seat decrements in one transaction and
+     * marks the booked seat numbers in each route's seat map, so the whole
+     * group costs one commit instead of one per booking.
+     *
+     * A decrement is applied only if enough seats are left and all of its
+     * seats are still free in the stored seat map, so the database stays
+     * the source of truth for seat assignment as well as for seat counts.
+     * The check and the write happen in the same transaction, so concurrent
+     * bookings (even from other processes) can never overbook.
+     *
+     * Every applied decrement is also appended to {@code seat_changes} in
+     * the same transaction, so other processes tailing the feed (see
+     * {@link SeatChangeFeed}) see exactly the committed changes.
+     *
+     * @param routeIds    route of each decrement
+     * @param seatCounts  seats to take for each decrement
+     * @param seatNumbers seats taken by each decrement
+     * @return for each decrement, the sequence number of its
+     *         {@code seat_changes} entry, or 0 if it was not applied
+     * @throws SQLException if the transaction could not be committed
+     *                      (none of the decrements are applied)
+     */
+    public long[] decrementAvailableSeats(int[] routeIds, int[] seatCounts, int[][] seatNumbers)
+            throws SQLException {
+        long start = System.nanoTime();
+        long[] applied = new long[routeIds.length];
+        try (PooledConnection conn = DatabaseUtils.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                PreparedStatement pstmt = conn.prepareStatement(DECREMENT_SEATS_SQL);
+                PreparedStatement feed = conn.prepareStatement(INSERT_SEAT_CHANGE_SQL);
+                PreparedStatement feedSequence = conn.prepareStatement(SELECT_LAST_INSERT_SQL);
+                long changedAt = System.currentTimeMillis();
+                // Each seat map is read and written once per batch
+                Map<Integer, SeatMap> seatMaps = new HashMap<>();
+                Set<Integer> changedSeatMaps = new HashSet<>();
+                for (int i = 0; i < routeIds.length; i++) {
+                    if (!seatMaps.containsKey(routeIds[i])) {
+                        seatMaps.put(routeIds[i], loadSeatMap(conn, routeIds[i]));
+                    }
+                    SeatMap seatMap = seatMaps.get(routeIds[i]);
+                    if (seatMap == null || !seatMap.book(seatNumbers[i])) {
+                        continue; // Seats already taken
+                    }
+                    pstmt.setInt(1, seatCounts[i]);
+                    pstmt.setInt(2, routeIds[i]);
+                    pstmt.setInt(3, seatCounts[i]);
+                    if (pstmt.executeUpdate() == 1) {
+                        feed.setString(1, DatabaseUtils.getInstanceId());
+                        feed.setInt(2, seatCounts[i]);
+                        feed.setString(3, SeatChangeFeed.formatSeatNumbers(seatNumbers[i]));
+                        feed.setLong(4, changedAt);
+                        feed.setInt(5, routeIds[i]);
+                        feed.executeUpdate();
+                        try (ResultSet rs = feedSequence.executeQuery()) {
+                            rs.next();
+                            applied[i] = rs.getLong(1);
+                        }
+                    }
+                    if (applied[i] != 0) {
+                        changedSeatMaps.add(routeIds[i]);
+                    } else {
+                        seatMap.release(seatNumbers[i]);
+                    }
+                }
+                for (Integer routeId : changedSeatMaps) {
+                    saveSeatMap(conn, routeId, seatMaps.get(routeId));
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            PerformanceMetrics.recordError(Operation.DECREMENT_AVAILABLE_SEATS_BATCH);
+            throw e;
+        } finally {
+            PerformanceMetrics.record(Operation.DECREMENT_AVAILABLE_SEATS_BATCH, start);
+        }
+        return applied;
+    }
+
+    /**
+     * Gets the seat map of a route, or null if the route does not exist.
+     * Routes booked before seat maps existed get a map with their first
+     * (total - available) seats taken.
+     */
+    public SeatMap getSeatMap(int routeId) {
+        long start = System.nanoTime();
+        try (PooledConnection conn = DatabaseUtils.getConnection()) {
+            return loadSeatMap(conn, routeId);
+        } catch (SQLException e) {
+            PerformanceMetrics.recordError(Operation.GET_SEAT_MAP);
             e.printStackTrace();
+            return null;
+        } finally {
+            PerformanceMetrics.record(Operation.GET_SEAT_MAP, start);
         }
     }
 
+    /**
+     * Stores seat maps and their free seat counts as the available seats
+     * of their routes, all in one transaction.
+     *
+     * @return true if the transaction was committed
+     */
+    public boolean saveSeatMaps(Map<Integer, SeatMap> seatMaps) {
+        long start = System.nanoTime();
+        try (PooledConnection conn = DatabaseUtils.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                PreparedStatement pstmt = conn.prepareStatement(UPDATE_SEATS_SQL);
+                for (Map.Entry<Integer, SeatMap> entry : seatMaps.entrySet()) {
+                    pstmt.setInt(1, entry.getValue().getFreeCount());
+                    pstmt.setInt(2, entry.getKey());
+                    pstmt.executeUpdate();
+                    saveSeatMap(conn, entry.getKey(), entry.getValue());
+                }
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            PerformanceMetrics.recordError(Operation.SAVE_SEAT_MAPS);
+            e.printStackTrace();
+            return false;
+        } finally {
+            PerformanceMetrics.record(Operation.SAVE_SEAT_MAPS, start);
+        }
+    }
+
+    private SeatMap loadSeatMap(PooledConnection conn, int routeId) throws SQLException {
+        PreparedStatement pstmt = conn.prepareStatement(SELECT_SEAT_MAP_SQL);
+        pstmt.setInt(1, routeId);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            if (!rs.next()) {
+                return null;
+            }
+            int totalSeats = rs.getInt(1);
+            byte[] stored = rs.getBytes(3);
+            return stored != null
+                    ? SeatMap.fromBytes(totalSeats, stored)
+                    : SeatMap.withFirstSeatsTaken(totalSeats, rs.getInt(2));
+        }
+    }
+
+    private void saveSeatMap(PooledConnection conn, int routeId, SeatMap seatMap) throws SQLException {
+        PreparedStatement pstmt = conn.prepareStatement(SAVE_SEAT_MAP_SQL);
+        pstmt.setInt(1, routeId);
+        pstmt.setBytes(2, seatMap.toBytes());
+        pstmt.executeUpdate();
+    }
+
     /**
      * Gets all unique source cities.
      */
     public List<String> getAllSourceCities() {
+        long start = System.nanoTime();
         List<String> cities = new ArrayList<>();
-        String query = "SELECT DISTINCT source_city FROM " + ROUTES_TABLE + 
-                " ORDER BY source_city";
         
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
+        try (PooledConnection conn = DatabaseUtils.getConnection();
+             ResultSet rs = conn.prepareStatement(SELECT_SOURCE_CITIES_SQL).executeQuery()) {
             
             while (rs.next()) {
                 cities.add(rs.getString(1));
             }
         } catch (SQLException e) {
+            PerformanceMetrics.recordError(Operation.GET_SOURCE_CITIES);
             e.printStackTrace();
+        } finally {
+            PerformanceMetrics.record(Operation.GET_SOURCE_CITIES, start);
         }
         
         return cities;
@@ -206,13 +731,11 @@ public class RouteRepository {
      * Gets all destination cities for a given source city.
      */
     public List<String> getDestinationCitiesForSource(String sourceCity) {
+        long start = System.nanoTime();
         List<String> cities = new ArrayList<>();
-        String query = "SELECT DISTINCT destination_city FROM " + ROUTES_TABLE + 
-                " WHERE source_city = ? ORDER BY destination_city";
         
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-            
+        try (PooledConnection conn = DatabaseUtils.getConnection()) {
+            PreparedStatement pstmt = conn.prepareStatement(SELECT_DESTINATION_CITIES_SQL);
             pstmt.setString(1, sourceCity);
             
             try (ResultSet rs = pstmt.executeQuery()) {
@@ -221,25 +744,38 @@ public class RouteRepository {
                 }
             }
         } catch (SQLException e) {
+            PerformanceMetrics.recordError(Operation.GET_DESTINATION_CITIES);
             e.printStackTrace();
+        } finally {
+            PerformanceMetrics.record(Operation.GET_DESTINATION_CITIES, start);
         }
         
         return cities;
     }
 
     /**
-     * Maps a ResultSet row to a Route object.
+     * Receives routes one row at a time from {@link #scanAllRoutes(RouteRowHandler)}.
+     * Times are minutes since midnight.
+     */
+    public interface RouteRowHandler {
+        void accept(int id, String sourceCity, String destinationCity, int departureMinute, int arrivalMinute,
+                    int totalSeats, int availableSeats, double price);
+    }
+
+    /**
+     * Maps a ResultSet row selecting {@link #ROUTE_COLUMNS} to a Route
+     * object, by column index and without parsing.
      */
     private Route mapResultSetToRoute(ResultSet rs) throws SQLException {
         return new Route(
-                rs.getInt("id"),
-                rs.getString("source_city"),
-                rs.getString("destination_city"),
-                LocalTime.parse(rs.getString("departure_time")),
-                LocalTime.parse(rs.getString("arrival_time")),
-                rs.getInt("total_seats"),
-                rs.getInt("available_seats"),
-                rs.getDouble("price")
+                rs.getInt(1),
+                rs.getString(2),
+                rs.getString(3),
+                rs.getInt(4),
+                rs.getInt(5),
+                rs.getInt(6),
+                rs.getInt(7),
+                rs.getDouble(8)
         );
     }
 }
\ No newline at end of file
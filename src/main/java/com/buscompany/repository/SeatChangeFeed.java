@@ -0,0 +1,269 @@
+package com.buscompany.repository;
+
+import com.buscompany.util.AppConfig;
+import com.buscompany.util.ConcurrencyUtils;
+import com.buscompany.util.DatabaseUtils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tails the {@code seat_changes} table, so seat changes committed by other
+ * processes sharing the database reach this one.
+ *
+ * Every committed booking appends a row in its own transaction (see
+ * {@link RouteRepository#decrementAvailableSeats(int[], int[], int[][])}).
+ * The feed polls on a dedicated connection, outside the pool. Each poll
+ * first reads {@code PRAGMA data_version}, which only changes when another
+ * connection committed, so an idle database costs one pragma per poll and
+ * no query. Rows written by this process are skipped; the others are
+ * passed to the listener in sequence order, on the poll thread.
+ *
+ * Rows older than the retention period are deleted. An instance that fell
+ * further behind than that is told through {@link Listener#onChangesMissed()}
+ * and must reload its seat state.
+ */
+public class SeatChangeFeed {
+    private static final String SELECT_CHANGES_SQL = "SELECT seq, route_id, instance_id, seat_delta," +
+            " available_seats, seat_numbers FROM seat_changes WHERE seq > ? ORDER BY seq LIMIT ?";
+    private static final String DELETE_OLD_CHANGES_SQL = "DELETE FROM seat_changes WHERE changed_at < ?";
+    private static final long PRUNE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final Listener listener;
+    private final long pollIntervalMillis;
+    private final int batchSize;
+    private final long retentionMillis;
+    private final String instanceId = DatabaseUtils.getInstanceId();
+    private ScheduledExecutorService scheduler;
+    private Connection connection;   // guarded by this
+    private PreparedStatement selectChanges;
+    private long position;           // guarded by this
+    private long dataVersion = -1;   // guarded by this
+    private long lastPruneMillis;    // guarded by this
+
+    /**
+     * Receives seat changes committed by other processes.
+     */
+    public interface Listener {
+        void onRemoteChange(SeatChange change);
+
+        /**
+         * Called when changes after this instance's position were deleted
+         * before it read them; cached seat state must be reloaded.
+         */
+        void onChangesMissed();
+    }
+
+    /**
+     * One committed seat change.
+     */
+    public static final class SeatChange {
+        private final long sequence;
+        private final int routeId;
+        private final int seatDelta;
+        private final int availableSeats;
+        private final int[] seatNumbers;
+
+        SeatChange(long sequence, int routeId, int seatDelta, int availableSeats, int[] seatNumbers) {
+            this.sequence = sequence;
+            this.routeId = routeId;
+            this.seatDelta = seatDelta;
+            this.availableSeats = availableSeats;
+            this.seatNumbers = seatNumbers;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public int getRouteId() {
+            return routeId;
+        }
+
+        /**
+         * Gets the seats taken by the change; negative if seats were freed.
+         */
+        public int getSeatDelta() {
+            return seatDelta;
+        }
+
+        /**
+         * Gets the route's available seats right after the change.
+         */
+        public int getAvailableSeats() {
+            return availableSeats;
+        }
+
+        /**
+         * Gets the seat numbers taken or freed, or null if the change did
+         * not assign seats.
+         */
+        public int[] getSeatNumbers() {
+            return seatNumbers;
+        }
+    }
+
+    public SeatChangeFeed(Listener listener) {
+        this(listener,
+                AppConfig.getLong("database.change-feed.poll-interval-ms", 100),
+                AppConfig.getInt("database.change-feed.batch-size", 1000),
+                AppConfig.getLong("database.change-feed.retention-seconds", 3600));
+    }
+
+    public SeatChangeFeed(Listener listener, long pollIntervalMillis, int batchSize, long retentionSeconds) {
+        this.listener = listener;
+        this.pollIntervalMillis = Math.max(1, pollIntervalMillis);
+        this.batchSize = Math.max(1, batchSize);
+        this.retentionMillis = TimeUnit.SECONDS.toMillis(Math.max(1, retentionSeconds));
+    }
+
+    /**
+     * Starts polling for changes after the given sequence number.
+     */
+    public synchronized void start(long afterSequence) throws SQLException {
+        if (scheduler != null) {
+            return;
+        }
+        connection = DatabaseUtils.openUnpooledConnection();
+        selectChanges = connection.prepareStatement(SELECT_CHANGES_SQL);
+        position = afterSequence;
+        scheduler = Executors.newSingleThreadScheduledExecutor(ConcurrencyUtils.daemonThreadFactory("seat-change-feed"));
+        scheduler.scheduleWithFixedDelay(this::pollQuietly, pollIntervalMillis, pollIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Delivers every change committed so far, on the calling thread.
+     * Used to catch up right away, e.g. after a booking lost a race with
+     * another process.
+     *
+     * @return the number of remote changes delivered
+     */
+    public synchronized int poll() throws SQLException {
+        if (connection == null) {
+            return 0;
+        }
+        long version = readDataVersion();
+        if (version == dataVersion) {
+            return 0; // No other connection committed since the last poll
+        }
+        dataVersion = version;
+
+        int delivered = 0;
+        int read;
+        do {
+            read = 0;
+            selectChanges.setLong(1, position);
+            selectChanges.setInt(2, batchSize);
+            try (ResultSet rs = selectChanges.executeQuery()) {
+                while (rs.next()) {
+                    long sequence = rs.getLong(1);
+                    // Writers are serialized and AUTOINCREMENT never reuses, so a hole means pruned rows
+                    if (sequence > position + 1 && position > 0) {
+                        listener.onChangesMissed();
+                    }
+                    position = sequence;
+                    read++;
+                    if (instanceId.equals(rs.getString(3))) {
+                        continue; // Already applied when it was booked here
+                    }
+                    listener.onRemoteChange(new SeatChange(sequence, rs.getInt(2), rs.getInt(4), rs.getInt(5),
+                            parseSeatNumbers(rs.getString(6))));
+                    delivered++;
+                }
+            }
+        } while (read == batchSize);
+
+        pruneIfDue();
+        return delivered;
+    }
+
+    /**
+     * Gets the sequence number of the last change read.
+     */
+    public synchronized long getPosition() {
+        return position;
+    }
+
+    /**
+     * Stops polling and closes the feed's connection.
+     */
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (connection != null) {
+            try {
+                selectChanges.close();
+                connection.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            connection = null;
+        }
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (SQLException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private long readDataVersion() throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA data_version")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private void pruneIfDue() throws SQLException {
+        long now = System.currentTimeMillis();
+        if (now - lastPruneMillis < PRUNE_INTERVAL_MILLIS) {
+            return;
+        }
+        lastPruneMillis = now;
+        try (PreparedStatement pstmt = connection.prepareStatement(DELETE_OLD_CHANGES_SQL)) {
+            pstmt.setLong(1, now - retentionMillis);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Formats seat numbers for the {@code seat_numbers} column ("3,4,5"),
+     * or null for a change without seat assignment.
+     */
+    static String formatSeatNumbers(int[] seatNumbers) {
+        if (seatNumbers == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(seatNumbers.length * 3);
+        for (int i = 0; i < seatNumbers.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(seatNumbers[i]);
+        }
+        return sb.toString();
+    }
+
+    static int[] parseSeatNumbers(String text) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        String[] parts = text.split(",");
+        int[] seatNumbers = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            seatNumbers[i] = Integer.parseInt(parts[i]);
+        }
+        return seatNumbers;
+    }
+}
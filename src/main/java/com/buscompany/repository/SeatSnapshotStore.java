@@ -0,0 +1,166 @@
+package com.buscompany.repository;
+
+import com.buscompany.model.SeatMap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Snapshot files of the seat maps, taken at a {@link BookingJournal}
+ * sequence number.
+ *
+ * A snapshot holds one bitmap per route that was ever booked through the
+ * journal (a 40-seat route costs 20 bytes), so recovery loads the snapshot
+ * and replays only the journal records after its sequence number. Files
+ * are written to a temporary name, flushed and renamed, and end with a
+ * CRC32; the two newest are kept so a damaged newest file falls back to
+ * the previous one.
+ */
+public class SeatSnapshotStore {
+    private static final int MAGIC = 0x53454154; // "SEAT"
+    private static final int FORMAT_VERSION = 1;
+    private static final String PREFIX = "seats-";
+    private static final String SUFFIX = ".snapshot";
+    private static final int RETAINED = 2;
+
+    private final Path directory;
+
+    public SeatSnapshotStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Seat maps restored from a snapshot.
+     */
+    public static class Snapshot {
+        private final long sequence;
+        private final Map<Integer, SeatMap> seatMaps;
+
+        Snapshot(long sequence, Map<Integer, SeatMap> seatMaps) {
+            this.sequence = sequence;
+            this.seatMaps = seatMaps;
+        }
+
+        /**
+         * Gets the last journal sequence number included in the snapshot.
+         */
+        public long getSequence() {
+            return sequence;
+        }
+
+        public Map<Integer, SeatMap> getSeatMaps() {
+            return seatMaps;
+        }
+    }
+
+    /**
+     * Writes a snapshot and removes all but the newest ones.
+     *
+     * @return the sequence number of the oldest snapshot still kept; journal
+     *         records up to it are no longer needed
+     */
+    public long write(long sequence, Map<Integer, SeatMap> seatMaps) throws IOException {
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, sequence, SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(sequence);
+            out.writeInt(seatMaps.size());
+            for (Map.Entry<Integer, SeatMap> entry : seatMaps.entrySet()) {
+                byte[] bytes = entry.getValue().toBytes();
+                out.writeInt(entry.getKey());
+                out.writeInt(entry.getValue().getSeatCount());
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            file.getChannel().force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        List<Path> files = listSnapshots();
+        for (int i = 0; i < files.size() - RETAINED; i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+        return sequenceOf(files.get(Math.max(0, files.size() - RETAINED)));
+    }
+
+    /**
+     * Reads the newest readable snapshot.
+     *
+     * @return the snapshot, or null if there is none
+     */
+    public Snapshot readLatest() throws IOException {
+        List<Path> files = listSnapshots();
+        for (int i = files.size() - 1; i >= 0; i--) {
+            try {
+                return read(files.get(i));
+            } catch (IOException e) {
+                System.err.println("Skipping unreadable seat snapshot " + files.get(i) + ": " + e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private Snapshot read(Path file) throws IOException {
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(file))) {
+            CheckedInputStream checked = new CheckedInputStream(stream, new CRC32());
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Not a seat snapshot");
+            }
+            long sequence = in.readLong();
+            int count = in.readInt();
+            Map<Integer, SeatMap> seatMaps = new HashMap<>(Math.max(16, count * 2));
+            for (int i = 0; i < count; i++) {
+                int routeId = in.readInt();
+                int seatCount = in.readInt();
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                seatMaps.put(routeId, SeatMap.fromBytes(seatCount, bytes));
+            }
+            long expected = checked.getChecksum().getValue();
+            if (new DataInputStream(stream).readLong() != expected) {
+                throw new IOException("Checksum mismatch");
+            }
+            return new Snapshot(sequence, seatMaps);
+        }
+    }
+
+    private List<Path> listSnapshots() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        files.sort((a, b) -> Long.compare(sequenceOf(a), sequenceOf(b)));
+        return files;
+    }
+
+    private static long sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,186 @@
+package com.buscompany.repository;
+
+import com.buscompany.util.AppConfig;
+import com.buscompany.util.ConcurrencyUtils;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Group-commit writer for seat decrements.
+ *
+ * Concurrent bookings enqueue their decrement and wait on a future. A single
+ * writer thread collects everything queued - up to the maximum batch size,
+ * waiting at most the maximum delay for more to arrive - and applies the
+ * whole group in one transaction. Each future completes only after the
+ * commit of its batch returned, so callers never see an uncommitted booking.
+ *
+ * The writer only waits for stragglers when the previous batch had more
+ * than one decrement, so a lone booking is not delayed by the max delay.
+ *
+ * Queuing and shutting down exclude each other: a decrement is either
+ * queued before shutdown starts, and then committed or failed by the
+ * writer's final drain, or refused at once. No future is left pending.
+ */
+public class SeatWriteBatcher {
+    private final RouteRepository repository;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<PendingDecrement> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean running = true;
+    // Read lock: queuing (many at once); write lock: stopping
+    private final ReadWriteLock shutdownLock = new ReentrantReadWriteLock();
+    private int lastBatchSize; // writer thread only
+
+    public SeatWriteBatcher(RouteRepository repository) {
+        this(repository,
+                AppConfig.getInt("booking.batch.max-size", 64),
+                AppConfig.getLong("booking.batch.max-delay-ms", 2));
+    }
+
+    public SeatWriteBatcher(RouteRepository repository, int maxBatchSize, long maxDelayMillis) {
+        this.repository = repository;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxDelayMillis));
+        this.writer = ConcurrencyUtils.daemonThreadFactory("seat-writer").newThread(this::runWriter);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a conditional seat decrement that also takes the given seat
+     * numbers in the route's seat map.
+     *
+     * @return completes with the sequence number of the decrement's
+     *         {@code seat_changes} entry once committed, or 0 if not enough
+     *         seats were available or one of the seats was already taken
+     */
+    public CompletableFuture<Long> submit(int routeId, int[] seatNumbers) {
+        return enqueue(new PendingDecrement(routeId, seatNumbers.length, seatNumbers));
+    }
+
+    private CompletableFuture<Long> enqueue(PendingDecrement pending) {
+        shutdownLock.readLock().lock();
+        try {
+            if (!running) {
+                pending.result.completeExceptionally(new IllegalStateException("Seat writer is shut down"));
+                return pending.result;
+            }
+            queue.add(pending);
+            return pending.result;
+        } finally {
+            shutdownLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stops the writer after flushing what is already queued.
+     */
+    public void shutdown() {
+        // Once this returns no decrement can be queued, so the writer's final drain sees them all
+        shutdownLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            shutdownLock.writeLock().unlock();
+        }
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runWriter() {
+        List<PendingDecrement> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingDecrement first = running ? queue.take() : queue.poll();
+                if (first == null) {
+                    break;
+                }
+                batch.add(first);
+                collect(batch);
+            } catch (InterruptedException e) {
+                // shutdown() interrupts a waiting writer; drain the rest below
+                queue.drainTo(batch, maxBatchSize - batch.size());
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+                lastBatchSize = batch.size();
+                batch.clear();
+            }
+        }
+        PendingDecrement late;
+        while ((late = queue.poll()) != null) {
+            late.result.completeExceptionally(new IllegalStateException("Seat writer is shut down"));
+        }
+    }
+
+    /**
+     * Fills the batch with queued decrements, waiting up to the max delay for more.
+     */
+    private void collect(List<PendingDecrement> batch) throws InterruptedException {
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        if (lastBatchSize <= 1 && batch.size() == 1) {
+            return; // No concurrent bookings seen recently; commit right away
+        }
+        long deadline = System.nanoTime() + maxDelayNanos;
+        while (batch.size() < maxBatchSize && running) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            PendingDecrement next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+    }
+
+    private void commit(List<PendingDecrement> batch) {
+        int[] routeIds = new int[batch.size()];
+        int[] seatCounts = new int[batch.size()];
+        int[][] seatNumbers = new int[batch.size()][];
+        for (int i = 0; i < batch.size(); i++) {
+            routeIds[i] = batch.get(i).routeId;
+            seatCounts[i] = batch.get(i).seatCount;
+            seatNumbers[i] = batch.get(i).seatNumbers;
+        }
+
+        try {
+            long[] applied = repository.decrementAvailableSeats(routeIds, seatCounts, seatNumbers);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(applied[i]);
+            }
+        } catch (SQLException | RuntimeException e) {
+            e.printStackTrace();
+            for (PendingDecrement pending : batch) {
+                pending.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static class PendingDecrement {
+        final int routeId;
+        final int seatCount;
+        final int[] seatNumbers;
+        final CompletableFuture<Long> result = new CompletableFuture<>();
+
+        PendingDecrement(int routeId, int seatCount, int[] seatNumbers) {
+            this.routeId = routeId;
+            this.seatCount = seatCount;
+            this.seatNumbers = seatNumbers;
+        }
+    }
+}
@@ -0,0 +1,439 @@
+package com.buscompany.server;
+
+import com.buscompany.model.Journey;
+import com.buscompany.model.Route;
+import com.buscompany.model.SeatHold;
+import com.buscompany.service.RouteService;
+import com.buscompany.util.AppConfig;
+import com.buscompany.util.ConcurrencyUtils;
+import com.buscompany.util.Json;
+import com.buscompany.util.PerformanceMetrics;
+import com.buscompany.util.PerformanceMetrics.Operation;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON HTTP API over {@link RouteService}, served by the JDK's built-in
+ * HTTP server. Needs no JavaFX toolkit.
+ *
+ * Endpoints:
+ * - GET  /api/cities                                   source cities
+ * - GET  /api/destinations?source=X                    destinations from a city
+ * - GET  /api/routes?source=X&amp;destination=Y           direct routes
+ * - GET  /api/routes/{id}                              one route
+ * - GET  /api/journeys?source=X&amp;destination=Y&amp;seats=N  itineraries with transfers
+ * - POST /api/bookings {"routeId":1,"tickets":2} or {"routeId":1,"seats":[4,5]}
+ * - POST /api/holds {"routeId":1,"tickets":2} or {"routeId":1,"seats":[4,5]}
+ * - POST /api/holds/confirm {"holdId":"9f2c..."}        books the held seats
+ * - POST /api/holds/release {"holdId":"9f2c..."}        gives them back early
+ *
+ * Every request runs as a single task on the server's executor, which
+ * parses it, runs the endpoint and writes the response (virtual threads
+ * when the runtime has them, otherwise at most {@code server.max-threads}
+ * platform threads). A request that waited longer than
+ * {@code server.request-timeout-ms} for its task to start is dropped with
+ * 503; once started, a request always runs to the end, so clients never
+ * see an unknown booking outcome. Responses carry a Content-Length, so
+ * connections are kept alive between requests.
+ */
+public class BookingHttpServer {
+    // When the exchange running on this thread was handed to the executor
+    private static final ThreadLocal<long[]> DISPATCHED_AT = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final RouteService routeService;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long requestTimeoutMillis;
+
+    /**
+     * Result of an endpoint: HTTP status and a JSON-encodable body.
+     */
+    private static final class Response {
+        final int status;
+        final Object body;
+
+        Response(int status, Object body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private interface Endpoint {
+        Response handle(HttpExchange exchange) throws Exception;
+    }
+
+    /**
+     * Thrown by endpoints for invalid requests; becomes a 4xx response.
+     */
+    private static final class RequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    public BookingHttpServer(RouteService routeService, InetSocketAddress address) throws IOException {
+        configureHttpServer();
+        this.routeService = routeService;
+        this.requestTimeoutMillis = AppConfig.getLong("server.request-timeout-ms", 5000);
+        this.executor = ConcurrencyUtils.newTaskExecutor("http", AppConfig.getInt("server.max-threads", 200));
+        this.server = HttpServer.create(address, AppConfig.getInt("server.backlog", 1024));
+        this.server.setExecutor(exchange -> {
+            long dispatchedAt = System.nanoTime();
+            executor.execute(() -> {
+                DISPATCHED_AT.get()[0] = dispatchedAt;
+                exchange.run();
+            });
+        });
+
+        route("/api/cities", "GET", this::getCities);
+        route("/api/destinations", "GET", this::getDestinations);
+        route("/api/routes", "GET", this::getRoutes);
+        route("/api/routes/", "GET", this::getRoute);
+        route("/api/journeys", "GET", this::getJourneys);
+        route("/api/bookings", "POST", this::postBooking);
+        route("/api/holds", "POST", this::postHold);
+        route("/api/holds/confirm", "POST", this::postConfirmHold);
+        route("/api/holds/release", "POST", this::postReleaseHold);
+    }
+
+    /**
+     * Applies keep-alive and I/O timeouts; the JDK server reads these
+     * system properties once, when the first server is created.
+     */
+    private static void configureHttpServer() {
+        setIfAbsent("sun.net.httpserver.idleInterval", AppConfig.getString("server.keep-alive-idle-seconds", "30"));
+        setIfAbsent("sun.net.httpserver.maxIdleConnections", AppConfig.getString("server.max-idle-connections", "1000"));
+        setIfAbsent("sun.net.httpserver.maxReqTime", AppConfig.getString("server.io-timeout-seconds", "30"));
+        setIfAbsent("sun.net.httpserver.maxRspTime", AppConfig.getString("server.io-timeout-seconds", "30"));
+    }
+
+    private static void setIfAbsent(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting connections, waits up to {@code delaySeconds} for
+     * exchanges in progress, then stops the request executor.
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    private void route(String path, String method, Endpoint endpoint) {
+        server.createContext(path, exchange -> {
+            long start = System.nanoTime();
+            Response response;
+            String requestPath = exchange.getRequestURI().getPath();
+            try {
+                if (!path.endsWith("/") && !requestPath.equals(path)) {
+                    response = error(404, "Not found");
+                } else if (!exchange.getRequestMethod().equalsIgnoreCase(method)) {
+                    response = error(405, "Method not allowed");
+                } else {
+                    response = runWithTimeout(exchange, endpoint);
+                }
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                response = error(500, "Internal server error");
+            }
+            if (response.status >= 500) {
+                PerformanceMetrics.recordError(Operation.HTTP_REQUEST);
+            }
+            send(exchange, response);
+            PerformanceMetrics.record(Operation.HTTP_REQUEST, start);
+        });
+    }
+
+    /**
+     * Runs an endpoint on the calling task, unless the request waited past
+     * the request timeout before the task started.
+     */
+    private Response runWithTimeout(HttpExchange exchange, Endpoint endpoint) {
+        long waitedNanos = System.nanoTime() - DISPATCHED_AT.get()[0];
+        if (waitedNanos > TimeUnit.MILLISECONDS.toNanos(requestTimeoutMillis)) {
+            return error(503, "Request timed out");
+        }
+        try {
+            return endpoint.handle(exchange);
+        } catch (RequestException e) {
+            return error(e.status, e.getMessage());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Response getCities(HttpExchange exchange) {
+        return ok(routeService.getAllSourceCities());
+    }
+
+    private Response getDestinations(HttpExchange exchange) {
+        String source = requiredParameter(exchange, "source");
+        return ok(routeService.getDestinationCitiesForSource(source));
+    }
+
+    private Response getRoute(HttpExchange exchange) {
+        String id = exchange.getRequestURI().getPath().substring("/api/routes/".length());
+        Route route = routeService.getRoute(parseInt(id, "route ID"));
+        return route == null ? error(404, "Route not found") : ok(toJson(route));
+    }
+
+    private Response getRoutes(HttpExchange exchange) {
+        String source = requiredParameter(exchange, "source");
+        String destination = requiredParameter(exchange, "destination");
+        List<Object> routes = new ArrayList<>();
+        for (Route route : routeService.getRoutesBySourceAndDestination(source, destination)) {
+            routes.add(toJson(route));
+        }
+        return ok(routes);
+    }
+
+    private Response getJourneys(HttpExchange exchange) {
+        String source = requiredParameter(exchange, "source");
+        String destination = requiredParameter(exchange, "destination");
+        String seatsParameter = queryParameters(exchange).get("seats");
+        int seats = seatsParameter == null ? 1 : parseInt(seatsParameter, "seats");
+
+        List<Object> journeys = new ArrayList<>();
+        for (Journey journey : routeService.findJourneys(source, destination, seats)) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("departureTime", journey.getDepartureTime().toString());
+            json.put("arrivalTime", journey.getArrivalTime().toString());
+            json.put("duration", journey.getDurationString());
+            json.put("transfers", journey.getTransferCount());
+            json.put("totalPrice", journey.getTotalPrice());
+            List<Object> legs = new ArrayList<>();
+            for (Route leg : journey.getLegs()) {
+                legs.add(toJson(leg));
+            }
+            json.put("legs", legs);
+            journeys.add(json);
+        }
+        return ok(journeys);
+    }
+
+    private Response postBooking(HttpExchange exchange) throws IOException {
+        Map<String, Object> request = readRequest(exchange);
+        int routeId = intValue(request.get("routeId"), "routeId");
+        Route route = routeService.getRoute(routeId);
+        if (route == null) {
+            return error(404, "Route not found");
+        }
+
+        int[] seats;
+        int[] seatNumbers = requestedSeats(request);
+        if (seatNumbers != null) {
+            seats = routeService.bookSeats(route, seatNumbers) ? seatNumbers : null;
+        } else {
+            seats = routeService.bookSeats(route, requestedTickets(request));
+        }
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("booked", seats != null);
+        json.put("routeId", routeId);
+        if (seats != null) {
+            json.put("seats", seats);
+            json.put("totalPrice", seats.length * route.getPrice());
+        }
+        json.put("availableSeats", routeService.getAvailableSeats(routeId));
+        return new Response(seats != null ? 200 : 409, json);
+    }
+
+    private Response postHold(HttpExchange exchange) throws IOException {
+        Map<String, Object> request = readRequest(exchange);
+        int routeId = intValue(request.get("routeId"), "routeId");
+        Route route = routeService.getRoute(routeId);
+        if (route == null) {
+            return error(404, "Route not found");
+        }
+
+        int[] seatNumbers = requestedSeats(request);
+        SeatHold hold = seatNumbers != null
+                ? routeService.holdSeats(route, seatNumbers)
+                : routeService.holdSeats(route, requestedTickets(request));
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("held", hold != null);
+        json.put("routeId", routeId);
+        if (hold != null) {
+            json.put("holdId", hold.getId());
+            json.put("seats", hold.getSeatNumbers());
+            json.put("totalPrice", hold.getSeatCount() * route.getPrice());
+            json.put("expiresAt", hold.getExpiresAt().toString());
+        }
+        json.put("availableSeats", routeService.getAvailableSeats(routeId));
+        return new Response(hold != null ? 200 : 409, json);
+    }
+
+    private Response postConfirmHold(HttpExchange exchange) throws IOException {
+        String holdId = stringValue(readRequest(exchange).get("holdId"), "holdId");
+        int[] seats = routeService.confirmHold(holdId);
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("booked", seats != null);
+        json.put("holdId", holdId);
+        if (seats != null) {
+            json.put("seats", seats);
+        }
+        return new Response(seats != null ? 200 : 409, json);
+    }
+
+    private Response postReleaseHold(HttpExchange exchange) throws IOException {
+        String holdId = stringValue(readRequest(exchange).get("holdId"), "holdId");
+        boolean released = routeService.releaseHold(holdId);
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("released", released);
+        json.put("holdId", holdId);
+        return new Response(released ? 200 : 404, json);
+    }
+
+    private static Map<String, Object> readRequest(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return Json.parseObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new RequestException(400, "Invalid JSON: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the "seats" array of a booking or hold request, or null if it
+     * asks for a number of "tickets" instead.
+     */
+    private static int[] requestedSeats(Map<String, Object> request) {
+        Object requestedSeats = request.get("seats");
+        if (!(requestedSeats instanceof List)) {
+            return null;
+        }
+        List<?> list = (List<?>) requestedSeats;
+        int[] seatNumbers = new int[list.size()];
+        for (int i = 0; i < seatNumbers.length; i++) {
+            seatNumbers[i] = intValue(list.get(i), "seats");
+        }
+        if (seatNumbers.length == 0) {
+            throw new RequestException(400, "seats must not be empty");
+        }
+        return seatNumbers;
+    }
+
+    private static int requestedTickets(Map<String, Object> request) {
+        int tickets = intValue(request.get("tickets"), "tickets");
+        if (tickets <= 0) {
+            throw new RequestException(400, "tickets must be positive");
+        }
+        return tickets;
+    }
+
+    private static Map<String, Object> toJson(Route route) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", route.getId());
+        json.put("sourceCity", route.getSourceCity());
+        json.put("destinationCity", route.getDestinationCity());
+        json.put("departureTime", route.getDepartureTime().toString());
+        json.put("arrivalTime", route.getArrivalTime().toString());
+        json.put("duration", route.getDurationString());
+        json.put("totalSeats", route.getTotalSeats());
+        json.put("availableSeats", route.getAvailableSeats());
+        json.put("price", route.getPrice());
+        return json;
+    }
+
+    private static Response ok(Object body) {
+        return new Response(200, body);
+    }
+
+    private static Response error(int status, String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", message);
+        return new Response(status, body);
+    }
+
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        byte[] bytes = Json.write(response.body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String requiredParameter(HttpExchange exchange, String name) {
+        String value = queryParameters(exchange).get(name);
+        if (value == null || value.isBlank()) {
+            throw new RequestException(400, "Missing query parameter: " + name);
+        }
+        return value;
+    }
+
+    private static Map<String, String> queryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            parameters.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static int parseInt(String value, String name) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new RequestException(400, "Invalid " + name + ": " + value);
+        }
+    }
+
+    private static int intValue(Object value, String name) {
+        if (!(value instanceof Number)) {
+            throw new RequestException(400, "Missing or invalid " + name);
+        }
+        double number = ((Number) value).doubleValue();
+        if (number != Math.rint(number) || Math.abs(number) > Integer.MAX_VALUE) {
+            throw new RequestException(400, "Invalid " + name + ": " + value);
+        }
+        return (int) number;
+    }
+
+    private static String stringValue(Object value, String name) {
+        if (!(value instanceof String) || ((String) value).isEmpty()) {
+            throw new RequestException(400, "Missing or invalid " + name);
+        }
+        return (String) value;
+    }
+}
@@ -0,0 +1,125 @@
+package com.buscompany.service;
+
+import com.buscompany.model.Route;
+import com.buscompany.util.ConcurrencyUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous facade over {@link RouteService}.
+ *
+ * Every call runs on a background executor (virtual threads when the
+ * runtime has them) and returns a {@link CompletableFuture}, so database
+ * work never blocks the JavaFX Application Thread. Callers marshal results
+ * back to the UI themselves, e.g. {@code thenAcceptAsync(action, Platform::runLater)}.
+ */
+public class AsyncRouteService {
+    private final RouteService routeService;
+    private final ExecutorService executor;
+
+    public AsyncRouteService(RouteService routeService) {
+        this.routeService = routeService;
+        this.executor = ConcurrencyUtils.newTaskExecutor("route-service");
+    }
+
+    /**
+     * Gets the wrapped synchronous service (e.g. to register observers).
+     */
+    public RouteService getRouteService() {
+        return routeService;
+    }
+
+    public CompletableFuture<List<Route>> getAllRoutesSorted() {
+        return submit(routeService::getAllRoutesSorted);
+    }
+
+    public CompletableFuture<List<Route>> getRoutesPage(Route after, int limit) {
+        return submit(() -> routeService.getRoutesPage(after, limit));
+    }
+
+    public CompletableFuture<Integer> countRoutes() {
+        return submit(routeService::countRoutes);
+    }
+
+    public CompletableFuture<List<Route>> getRoutesBySourceAndDestination(String source, String destination) {
+        return submit(() -> routeService.getRoutesBySourceAndDestination(source, destination));
+    }
+
+    public CompletableFuture<List<String>> getAllSourceCities() {
+        return submit(routeService::getAllSourceCities);
+    }
+
+    public CompletableFuture<List<String>> getDestinationCitiesForSource(String sourceCity) {
+        return submit(() -> routeService.getDestinationCitiesForSource(sourceCity));
+    }
+
+    public CompletableFuture<Boolean> bookTickets(Route route, int ticketCount) {
+        return submit(() -> routeService.bookTickets(route, ticketCount));
+    }
+
+    public CompletableFuture<Integer> getAvailableSeats(int routeId) {
+        return submit(() -> routeService.getAvailableSeats(routeId));
+    }
+
+    /**
+     * Runs a task on the service executor.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    /**
+     * Stops accepting new work.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Tracks the latest request of one kind and cancels the one it supersedes.
+     *
+     * Used for UI lookups where only the most recent answer matters, such as
+     * destination cities while the user is still changing the source city.
+     * A superseded request that has not started yet skips its work entirely;
+     * one already running is cancelled, so its result is never delivered.
+     */
+    public static class LatestRequest<T> {
+        private final AtomicReference<CompletableFuture<T>> latest = new AtomicReference<>();
+
+        /**
+         * Starts a request, cancelling the previous one if still in flight.
+         */
+        public CompletableFuture<T> replace(AsyncRouteService service, Supplier<T> task) {
+            CompletableFuture<T> request = new CompletableFuture<>();
+            CompletableFuture<T> previous = latest.getAndSet(request);
+            if (previous != null) {
+                previous.cancel(false);
+            }
+            service.submit(() -> {
+                if (!request.isDone()) {
+                    try {
+                        request.complete(task.get());
+                    } catch (RuntimeException e) {
+                        request.completeExceptionally(e);
+                    }
+                }
+                return null;
+            });
+            return request;
+        }
+
+        /**
+         * Cancels the in-flight request, if any.
+         */
+        public void cancel() {
+            CompletableFuture<T> previous = latest.getAndSet(null);
+            if (previous != null) {
+                previous.cancel(false);
+            }
+        }
+    }
+}
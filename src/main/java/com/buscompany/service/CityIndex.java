@@ -0,0 +1,268 @@
+package com.buscompany.service;
+
+import com.buscompany.model.Route;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable origin-to-destination adjacency index over city names.
+ *
+ * Every city is interned once and mapped to an int ID; the same IDs are
+ * used by the columns of {@link RouteTable}. For each origin the
+ * reachable destinations are kept as a sorted ID array plus a ready-made
+ * sorted name list, so the city pickers are answered in O(result) without
+ * touching the database.
+ */
+public final class CityIndex {
+    private static final int[] NO_DESTINATIONS = new int[0];
+
+    private final String[] names;
+    private final Map<String, Integer> idsByName;
+    private final int[][] destinationsByOrigin;
+    private final List<String> sourceCities;
+    private final List<List<String>> destinationNames;
+    private final int[] nameRanks;
+
+    private CityIndex(String[] names, Map<String, Integer> idsByName, int[][] destinationsByOrigin) {
+        this.names = names;
+        this.idsByName = idsByName;
+        this.destinationsByOrigin = destinationsByOrigin;
+
+        List<String> sources = new ArrayList<>();
+        List<List<String>> destinations = new ArrayList<>(names.length);
+        for (int origin = 0; origin < names.length; origin++) {
+            int[] ids = destinationsByOrigin[origin];
+            if (ids.length > 0) {
+                sources.add(names[origin]);
+            }
+            String[] reachable = new String[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                reachable[i] = names[ids[i]];
+            }
+            destinations.add(Collections.unmodifiableList(Arrays.asList(reachable)));
+        }
+        sources.sort(Comparator.naturalOrder());
+        this.sourceCities = Collections.unmodifiableList(sources);
+        this.destinationNames = destinations;
+
+        int[] byName = sortByName(IntStream.range(0, names.length).toArray(), names);
+        this.nameRanks = new int[names.length];
+        for (int rank = 0; rank < byName.length; rank++) {
+            nameRanks[byName[rank]] = rank;
+        }
+    }
+
+    private CityIndex(String[] names, Map<String, Integer> idsByName, int[][] destinationsByOrigin,
+                      List<String> sourceCities, List<List<String>> destinationNames, int[] nameRanks) {
+        this.names = names;
+        this.idsByName = idsByName;
+        this.destinationsByOrigin = destinationsByOrigin;
+        this.sourceCities = sourceCities;
+        this.destinationNames = destinationNames;
+        this.nameRanks = nameRanks;
+    }
+
+    /**
+     * Builds the index over already interned cities. City IDs are kept as
+     * given: {@code names[id]} is the name of city {@code id}.
+     *
+     * @param sourceIds      origin city ID of each route
+     * @param destinationIds destination city ID of each route
+     * @param routeCount     number of routes in the ID arrays
+     */
+    public static CityIndex build(String[] names, int[] sourceIds, int[] destinationIds, int routeCount) {
+        Map<String, Integer> idsByName = new HashMap<>(names.length * 2);
+        for (int id = 0; id < names.length; id++) {
+            idsByName.put(names[id], id);
+        }
+
+        Set<Long> seenPairs = new HashSet<>();
+        List<List<Integer>> adjacency = new ArrayList<>(names.length);
+        for (int i = 0; i < names.length; i++) {
+            adjacency.add(new ArrayList<>());
+        }
+        for (int i = 0; i < routeCount; i++) {
+            int origin = sourceIds[i];
+            int destination = destinationIds[i];
+            if (seenPairs.add(((long) origin << 32) | destination)) {
+                adjacency.get(origin).add(destination);
+            }
+        }
+
+        int[][] destinationsByOrigin = new int[names.length][];
+        for (int origin = 0; origin < names.length; origin++) {
+            destinationsByOrigin[origin] = sortByName(adjacency.get(origin).stream()
+                    .mapToInt(Integer::intValue).toArray(), names);
+        }
+        return new CityIndex(names, idsByName, destinationsByOrigin);
+    }
+
+    /**
+     * Returns an index that also contains the given route's city pair.
+     * Only the origin's destination lists (and the source city list, if the
+     * origin is new as a source) are rebuilt; every other origin's lists
+     * are shared with this index. A new city appends its ID and shifts the
+     * name ranks after it.
+     */
+    public CityIndex withRoute(Route route) {
+        Map<String, Integer> newIds = idsByName;
+        String[] newNames = names;
+        int[][] newAdjacency = destinationsByOrigin;
+        List<List<String>> newDestinationNames = destinationNames;
+        int[] newRanks = nameRanks;
+
+        for (String city : new String[] {route.getSourceCity(), route.getDestinationCity()}) {
+            if (!newIds.containsKey(city)) {
+                if (newIds == idsByName) {
+                    newIds = new HashMap<>(idsByName);
+                    newDestinationNames = new ArrayList<>(destinationNames);
+                }
+                newIds.put(city, newNames.length);
+                newRanks = withNameRank(newRanks, newNames, city);
+                newNames = Arrays.copyOf(newNames, newNames.length + 1);
+                newNames[newNames.length - 1] = city;
+                newAdjacency = Arrays.copyOf(newAdjacency, newAdjacency.length + 1);
+                newAdjacency[newAdjacency.length - 1] = NO_DESTINATIONS;
+                newDestinationNames.add(Collections.emptyList());
+            }
+        }
+
+        int origin = newIds.get(route.getSourceCity());
+        int destination = newIds.get(route.getDestinationCity());
+        int[] current = newAdjacency[origin];
+        for (int id : current) {
+            if (id == destination) {
+                return newNames == names ? this : new CityIndex(newNames, newIds, newAdjacency,
+                        sourceCities, newDestinationNames, newRanks);
+            }
+        }
+
+        if (newAdjacency == destinationsByOrigin) {
+            newAdjacency = destinationsByOrigin.clone();
+            newDestinationNames = new ArrayList<>(destinationNames);
+        }
+        int position = insertionPoint(current, newNames, newNames[destination]);
+        int[] extended = new int[current.length + 1];
+        System.arraycopy(current, 0, extended, 0, position);
+        extended[position] = destination;
+        System.arraycopy(current, position, extended, position + 1, current.length - position);
+        newAdjacency[origin] = extended;
+
+        List<String> reachable = new ArrayList<>(newDestinationNames.get(origin));
+        reachable.add(position, newNames[destination]);
+        newDestinationNames.set(origin, Collections.unmodifiableList(reachable));
+
+        List<String> newSources = sourceCities;
+        if (current.length == 0) {
+            List<String> sources = new ArrayList<>(sourceCities);
+            sources.add(-Collections.binarySearch(sources, newNames[origin]) - 1, newNames[origin]);
+            newSources = Collections.unmodifiableList(sources);
+        }
+        return new CityIndex(newNames, newIds, newAdjacency, newSources, newDestinationNames, newRanks);
+    }
+
+    /**
+     * Gets all cities with at least one outgoing route, sorted by name.
+     */
+    public List<String> getSourceCities() {
+        return sourceCities;
+    }
+
+    /**
+     * Gets the cities directly reachable from a source city, sorted by name.
+     */
+    public List<String> getDestinationCities(String sourceCity) {
+        Integer origin = idsByName.get(sourceCity);
+        return origin == null ? Collections.emptyList() : destinationNames.get(origin);
+    }
+
+    /**
+     * Gets the IDs of the cities directly reachable from a city, sorted by
+     * name. The array must not be modified.
+     */
+    public int[] getDestinationIds(int originId) {
+        return originId < 0 || originId >= destinationsByOrigin.length
+                ? NO_DESTINATIONS : destinationsByOrigin[originId];
+    }
+
+    /**
+     * Gets the int ID of a city, or -1 if unknown.
+     */
+    public int getCityId(String city) {
+        Integer id = idsByName.get(city);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Gets the interned name for a city ID.
+     */
+    public String getCityName(int cityId) {
+        return names[cityId];
+    }
+
+    /**
+     * Gets the position of a city in alphabetical order, so city IDs can be
+     * sorted by name with plain int comparisons.
+     */
+    public int getNameRank(int cityId) {
+        return nameRanks[cityId];
+    }
+
+    public int getCityCount() {
+        return names.length;
+    }
+
+    /**
+     * Gets the name ranks after adding a city: the new city's rank is the
+     * number of names before it, and the ranks from there on move up one.
+     */
+    private static int[] withNameRank(int[] ranks, String[] names, String city) {
+        int rank = 0;
+        for (String name : names) {
+            if (name.compareTo(city) < 0) {
+                rank++;
+            }
+        }
+        int[] shifted = Arrays.copyOf(ranks, ranks.length + 1);
+        for (int i = 0; i < ranks.length; i++) {
+            if (shifted[i] >= rank) {
+                shifted[i]++;
+            }
+        }
+        shifted[ranks.length] = rank;
+        return shifted;
+    }
+
+    /**
+     * Finds where a name goes in IDs sorted by name.
+     */
+    private static int insertionPoint(int[] ids, String[] names, String name) {
+        int low = 0;
+        int high = ids.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (names[ids[mid]].compareTo(name) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int[] sortByName(int[] ids, String[] names) {
+        return Arrays.stream(ids).boxed()
+                .sorted(Comparator.comparing(id -> names[id]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+}
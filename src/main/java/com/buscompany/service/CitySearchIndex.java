@@ -0,0 +1,267 @@
+package com.buscompany.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Type-ahead index over city names.
+ *
+ * Names are folded (diacritics removed, lower case), so "brasov" finds
+ * "Brașov". Every word of a name is a key ("napoca" finds "Cluj-Napoca"),
+ * and the keys are kept in one sorted array: the cities matching a prefix
+ * are a contiguous range found with two binary searches. Matches are
+ * ranked by route count, then by name.
+ *
+ * Short prefixes match large ranges, so the top results for every prefix
+ * of up to {@value #CACHED_PREFIX_LENGTH} characters (and for the empty
+ * query) are computed once when the index is built.
+ */
+public final class CitySearchIndex {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final int CACHED_PREFIX_LENGTH = 2;
+    private static final int CACHED_RESULTS = 32;
+
+    private final CityIndex cities;
+    private final int[] routesFrom;
+    private final String[] keys;      // Folded word suffixes, sorted
+    private final int[] keyCityIds;   // City of each key
+    private final String[] foldedNames;
+    private final Map<String, int[]> topSourcesByPrefix = new HashMap<>();
+
+    /**
+     * Builds the index over the cities of a route table.
+     */
+    public CitySearchIndex(RouteTable table) {
+        this.cities = table.getCities();
+        int cityCount = cities.getCityCount();
+        this.routesFrom = new int[cityCount];
+        for (int row = 0; row < table.size(); row++) {
+            routesFrom[table.getSourceCityId(row)]++;
+        }
+
+        foldedNames = new String[cityCount];
+        List<String> wordKeys = new ArrayList<>();
+        List<Integer> wordCityIds = new ArrayList<>();
+        for (int id = 0; id < cityCount; id++) {
+            String folded = fold(cities.getCityName(id));
+            foldedNames[id] = folded;
+            for (int start = 0; start < folded.length(); start++) {
+                if (isWordStart(folded, start)) {
+                    wordKeys.add(folded.substring(start));
+                    wordCityIds.add(id);
+                }
+            }
+        }
+        int[] order = IntStream.range(0, wordKeys.size()).boxed()
+                .sorted((a, b) -> wordKeys.get(a).compareTo(wordKeys.get(b)))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        keys = new String[order.length];
+        keyCityIds = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            keys[i] = wordKeys.get(order[i]);
+            keyCityIds[i] = wordCityIds.get(order[i]);
+        }
+
+        topSourcesByPrefix.put("", topSources(0, keys.length, CACHED_RESULTS));
+        for (int i = 0; i < keys.length; i++) {
+            for (int length = 1; length <= CACHED_PREFIX_LENGTH && length <= keys[i].length(); length++) {
+                String prefix = keys[i].substring(0, length);
+                if (!topSourcesByPrefix.containsKey(prefix)) {
+                    int end = upperBound(prefix);
+                    topSourcesByPrefix.put(prefix, topSources(i, end, CACHED_RESULTS));
+                }
+            }
+        }
+    }
+
+    /**
+     * Folds a name or query for matching: removes diacritics (including
+     * letters that do not decompose, such as "ł" and "ß"), lower-cases and
+     * trims it.
+     */
+    public static String fold(String text) {
+        String decomposed = Normalizer.normalize(text.trim(), Normalizer.Form.NFD);
+        String stripped = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+        StringBuilder sb = new StringBuilder(stripped.length());
+        for (int i = 0; i < stripped.length(); i++) {
+            char c = Character.toLowerCase(stripped.charAt(i));
+            switch (c) {
+                case 'ł': sb.append('l'); break;
+                case 'đ': sb.append('d'); break;
+                case 'ø': sb.append('o'); break;
+                case 'ı': sb.append('i'); break;
+                case 'ß': sb.append("ss"); break;
+                case 'æ': sb.append("ae"); break;
+                case 'œ': sb.append("oe"); break;
+                default: sb.append(c);
+            }
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Finds source cities (cities with outgoing routes) whose name or one
+     * of its words starts with the query, most routes first.
+     *
+     * @param limit maximum number of results
+     */
+    public List<String> findSources(String query, int limit) {
+        String prefix = fold(query);
+        int[] ids = limit <= CACHED_RESULTS ? topSourcesByPrefix.get(prefix) : null;
+        if (ids == null) {
+            ids = topSources(lowerBound(prefix), upperBound(prefix), limit);
+        }
+        return toNames(ids, limit);
+    }
+
+    /**
+     * Finds cities among the given ones whose name or one of its words
+     * starts with the query, ranked by the given route count. Scans only
+     * the candidates, so it suits small sets such as the destinations of
+     * one origin.
+     */
+    public List<String> findAmong(int[] cityIds, String query, int limit, IntUnaryOperator routeCount) {
+        String prefix = fold(query);
+        TopCities top = new TopCities(limit);
+        for (int id : cityIds) {
+            if (matches(foldedNames[id], prefix)) {
+                top.offer(id, routeCount.applyAsInt(id), cities.getNameRank(id));
+            }
+        }
+        return toNames(top.toArray(), limit);
+    }
+
+    /**
+     * Gets the number of routes leaving a city.
+     */
+    public int getRouteCountFrom(int cityId) {
+        return routesFrom[cityId];
+    }
+
+    private int[] topSources(int from, int to, int limit) {
+        TopCities top = new TopCities(limit);
+        for (int i = from; i < to; i++) {
+            int id = keyCityIds[i];
+            if (routesFrom[id] > 0) {
+                top.offer(id, routesFrom[id], cities.getNameRank(id));
+            }
+        }
+        return top.toArray();
+    }
+
+    private List<String> toNames(int[] ids, int limit) {
+        int count = Math.min(ids.length, limit);
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = cities.getCityName(ids[i]);
+        }
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    /**
+     * Gets the first key that is not less than the prefix.
+     */
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets the first key after all keys that start with the prefix.
+     */
+    private int upperBound(String prefix) {
+        int low = lowerBound(prefix);
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].startsWith(prefix)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static boolean matches(String foldedName, String prefix) {
+        for (int start = 0; start < foldedName.length(); start++) {
+            if (isWordStart(foldedName, start) && foldedName.startsWith(prefix, start)) {
+                return true;
+            }
+        }
+        return prefix.isEmpty();
+    }
+
+    private static boolean isWordStart(String text, int index) {
+        return Character.isLetterOrDigit(text.charAt(index))
+                && (index == 0 || !Character.isLetterOrDigit(text.charAt(index - 1)));
+    }
+
+    /**
+     * Keeps the best {@code limit} cities seen, by route count and then
+     * name, in a small sorted array; a city offered twice (two matching
+     * words) is kept once.
+     */
+    private static final class TopCities {
+        private final int[] ids;
+        private final int[] counts;
+        private final int[] nameRanks;
+        private int size;
+
+        TopCities(int limit) {
+            ids = new int[Math.max(0, limit)];
+            counts = new int[ids.length];
+            nameRanks = new int[ids.length];
+        }
+
+        void offer(int id, int count, int nameRank) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    return;
+                }
+            }
+            int position = size;
+            while (position > 0 && isBetter(count, nameRank, position - 1)) {
+                position--;
+            }
+            if (position >= ids.length) {
+                return;
+            }
+            int moved = Math.min(size, ids.length - 1) - position;
+            System.arraycopy(ids, position, ids, position + 1, moved);
+            System.arraycopy(counts, position, counts, position + 1, moved);
+            System.arraycopy(nameRanks, position, nameRanks, position + 1, moved);
+            ids[position] = id;
+            counts[position] = count;
+            nameRanks[position] = nameRank;
+            size = Math.min(size + 1, ids.length);
+        }
+
+        private boolean isBetter(int count, int nameRank, int index) {
+            return count > counts[index] || (count == counts[index] && nameRank < nameRanks[index]);
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.buscompany.service;
+
+import com.buscompany.model.Journey;
+import com.buscompany.model.Route;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Multi-leg journey search over the route catalog (Connection Scan Algorithm).
+ *
+ * Every route is one connection. The connections are stored as parallel
+ * primitive arrays sorted by departure time, and a query is a single
+ * forward scan over them, so searches stay fast with tens of thousands of
+ * routes. Times are minutes of the day; a route arriving before it departs
+ * is treated as arriving the next day.
+ *
+ * Routes run every day, so the scan covers {@value #SERVICE_DAYS} days: it
+ * runs over the day's connections and then over the same connections again
+ * shifted by a day. A leg arriving after midnight, or a transfer whose next
+ * bus leaves the following morning, can thus be continued. Connection
+ * indexes in the scan are virtual: index {@code c} is connection
+ * {@code c % n} on day {@code c / n}.
+ *
+ * A planner only depends on the set of routes, not on seat counts, so it is
+ * built once per catalog structure; seats are checked at query time against
+ * the snapshot the query runs on.
+ */
+public class JourneyPlanner {
+    private static final int UNREACHED = Integer.MAX_VALUE;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int SERVICE_DAYS = 2;
+
+    private final CityIndex cities;
+    private final int[] departureCity;
+    private final int[] arrivalCity;
+    private final int[] departureMinute;
+    private final int[] arrivalMinute;
+    private final int[] routePosition;
+
+    JourneyPlanner(RouteTable table) {
+        this.cities = table.getCities();
+        int count = table.size();
+
+        // Sort by departure with a primitive sort: (departure minute << 32) | row
+        long[] keys = new long[count];
+        for (int row = 0; row < count; row++) {
+            keys[row] = ((long) table.getDepartureMinute(row) << 32) | row;
+        }
+        Arrays.sort(keys);
+
+        departureCity = new int[count];
+        arrivalCity = new int[count];
+        departureMinute = new int[count];
+        arrivalMinute = new int[count];
+        routePosition = new int[count];
+        for (int c = 0; c < count; c++) {
+            int row = (int) keys[c];
+            int departure = table.getDepartureMinute(row);
+            int arrival = table.getArrivalMinute(row);
+            departureCity[c] = table.getSourceCityId(row);
+            arrivalCity[c] = table.getDestinationCityId(row);
+            departureMinute[c] = departure;
+            // Same rule as Route.durationMinutes: only an arrival before the departure is overnight
+            arrivalMinute[c] = arrival < departure ? arrival + MINUTES_PER_DAY : arrival;
+            routePosition[c] = row;
+        }
+    }
+
+    /**
+     * Finds the journey that arrives first.
+     *
+     * @param earliestDeparture     minute of day from which the traveller can leave
+     * @param minConnectionMinutes  minimum time between arriving and boarding the next bus
+     * @param seats                 seats needed on every leg
+     * @return the journey, or null if the destination cannot be reached
+     */
+    public Journey findEarliestArrival(RouteCatalog.Snapshot snapshot, String source, String destination,
+                                       int earliestDeparture, int minConnectionMinutes, int seats) {
+        int from = cities.getCityId(source);
+        int to = cities.getCityId(destination);
+        if (from < 0 || to < 0 || from == to) {
+            return null;
+        }
+
+        int[] ready = new int[cities.getCityCount()];
+        int[] reachedBy = new int[cities.getCityCount()];
+        Arrays.fill(ready, UNREACHED);
+        Arrays.fill(reachedBy, -1);
+        ready[from] = earliestDeparture;
+
+        int bestArrival = UNREACHED;
+        int bestConnection = -1;
+        int end = departureMinute.length * SERVICE_DAYS;
+        for (int c = firstDepartingAtOrAfter(earliestDeparture); c < end; c++) {
+            int departure = departure(c);
+            if (departure >= bestArrival) {
+                break; // Nothing departing now can arrive earlier
+            }
+            int base = base(c);
+            if (ready[departureCity[base]] > departure || !hasSeats(snapshot, base, seats)) {
+                continue;
+            }
+            int arrivalCityId = arrivalCity[base];
+            if (arrivalCityId == to) {
+                if (arrival(c) < bestArrival) {
+                    bestArrival = arrival(c);
+                    bestConnection = c;
+                }
+            } else if (arrivalCityId != from) {
+                int readyAt = arrival(c) + minConnectionMinutes;
+                if (readyAt < ready[arrivalCityId]) {
+                    ready[arrivalCityId] = readyAt;
+                    reachedBy[arrivalCityId] = c;
+                }
+            }
+        }
+        return bestConnection < 0 ? null : toJourney(snapshot, bestConnection, from, new int[][] {reachedBy}, 0);
+    }
+
+    /**
+     * Finds the journey with the fewest legs, arriving as early as possible
+     * among those. Each round of the scan allows one more leg.
+     *
+     * @param maxLegs give up after this many legs
+     * @return the journey, or null if the destination cannot be reached
+     */
+    public Journey findFewestTransfers(RouteCatalog.Snapshot snapshot, String source, String destination,
+                                       int earliestDeparture, int minConnectionMinutes, int seats, int maxLegs) {
+        int from = cities.getCityId(source);
+        int to = cities.getCityId(destination);
+        if (from < 0 || to < 0 || from == to) {
+            return null;
+        }
+
+        int cityCount = cities.getCityCount();
+        int[] previousReady = new int[cityCount];
+        Arrays.fill(previousReady, UNREACHED);
+        previousReady[from] = earliestDeparture;
+        int[][] reachedBy = new int[maxLegs][];
+        int start = firstDepartingAtOrAfter(earliestDeparture);
+        int end = departureMinute.length * SERVICE_DAYS;
+
+        for (int round = 0; round < maxLegs; round++) {
+            int[] ready = previousReady.clone();
+            reachedBy[round] = round == 0 ? filled(cityCount, -1) : reachedBy[round - 1].clone();
+
+            int bestArrival = UNREACHED;
+            int bestConnection = -1;
+            boolean improved = false;
+            for (int c = start; c < end; c++) {
+                int base = base(c);
+                // Board only from cities reached with one leg fewer
+                if (previousReady[departureCity[base]] > departure(c) || !hasSeats(snapshot, base, seats)) {
+                    continue;
+                }
+                int arrivalCityId = arrivalCity[base];
+                if (arrivalCityId == to) {
+                    if (arrival(c) < bestArrival) {
+                        bestArrival = arrival(c);
+                        bestConnection = c;
+                    }
+                } else if (arrivalCityId != from) {
+                    int readyAt = arrival(c) + minConnectionMinutes;
+                    if (readyAt < ready[arrivalCityId]) {
+                        ready[arrivalCityId] = readyAt;
+                        reachedBy[round][arrivalCityId] = c;
+                        improved = true;
+                    }
+                }
+            }
+            if (bestConnection >= 0) {
+                return toJourney(snapshot, bestConnection, from, reachedBy, round - 1);
+            }
+            if (!improved) {
+                return null; // No new city reached; more legs cannot help
+            }
+            previousReady = ready;
+        }
+        return null;
+    }
+
+    /**
+     * Lists up to {@code limit} earliest-arrival journeys with successively
+     * later departures, plus the fewest-transfer journey if it differs.
+     * Results are ordered by departure time.
+     */
+    public List<Journey> findJourneys(RouteCatalog.Snapshot snapshot, String source, String destination,
+                                      int minConnectionMinutes, int seats, int maxLegs, int limit) {
+        List<Journey> journeys = new ArrayList<>();
+        int earliestDeparture = 0;
+        while (journeys.size() < limit && earliestDeparture < MINUTES_PER_DAY) {
+            Journey journey = findEarliestArrival(snapshot, source, destination,
+                    earliestDeparture, minConnectionMinutes, seats);
+            if (journey == null || journey.getLegs().get(0).getDepartureMinute() < earliestDeparture) {
+                break; // None left today; the first leg would leave tomorrow
+            }
+            if (!journeys.contains(journey)) {
+                journeys.add(journey);
+            }
+            earliestDeparture = journey.getLegs().get(0).getDepartureMinute() + 1;
+        }
+
+        Journey fewestTransfers = findFewestTransfers(snapshot, source, destination, 0,
+                minConnectionMinutes, seats, maxLegs);
+        if (fewestTransfers != null && !journeys.contains(fewestTransfers)) {
+            journeys.add(fewestTransfers);
+        }
+        journeys.sort((j1, j2) -> j1.getDepartureTime().compareTo(j2.getDepartureTime()));
+        return Collections.unmodifiableList(journeys);
+    }
+
+    /**
+     * Gets the connection a virtual scan index stands for.
+     */
+    private int base(int c) {
+        return c % departureMinute.length;
+    }
+
+    private int departure(int c) {
+        return departureMinute[base(c)] + c / departureMinute.length * MINUTES_PER_DAY;
+    }
+
+    private int arrival(int c) {
+        return arrivalMinute[base(c)] + c / departureMinute.length * MINUTES_PER_DAY;
+    }
+
+    private boolean hasSeats(RouteCatalog.Snapshot snapshot, int connection, int seats) {
+        return snapshot.getTable().getAvailableSeats(routePosition[connection]) >= seats;
+    }
+
+    /**
+     * Walks the journey pointers back from the final leg to the source,
+     * noting the day each leg departs on.
+     */
+    private Journey toJourney(RouteCatalog.Snapshot snapshot, int lastConnection, int from,
+                              int[][] reachedBy, int round) {
+        List<Route> legs = new ArrayList<>();
+        List<Integer> days = new ArrayList<>();
+        int c = lastConnection;
+        while (true) {
+            legs.add(snapshot.getTable().toRoute(routePosition[base(c)]));
+            days.add(c / departureMinute.length);
+            int city = departureCity[base(c)];
+            if (city == from) {
+                break;
+            }
+            c = reachedBy[Math.max(round, 0)][city];
+            round--;
+        }
+        Collections.reverse(legs);
+        Collections.reverse(days);
+        int firstDay = days.get(0);
+        return new Journey(legs, days.stream().mapToInt(day -> day - firstDay).toArray());
+    }
+
+    private int firstDepartingAtOrAfter(int minute) {
+        int low = 0;
+        int high = departureMinute.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (departureMinute[mid] < minute) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int[] filled(int length, int value) {
+        int[] array = new int[length];
+        Arrays.fill(array, value);
+        return array;
+    }
+}
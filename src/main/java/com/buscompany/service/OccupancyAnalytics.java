@@ -0,0 +1,375 @@
+package com.buscompany.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Live occupancy (load factor) and revenue per city pair and per
+ * departure hour, maintained incrementally from seat change events.
+ *
+ * The aggregates are built once from a catalog snapshot (one pass over the
+ * in-memory columns, no database query) and from then on every booking
+ * or release adds its seats and revenue to one city pair and one hour. A
+ * change is tagged with the catalog version that contains it; changes the
+ * build already saw are skipped, so none is counted twice. The build is
+ * repeated only when the catalog structure changes (routes added or
+ * reloaded).
+ *
+ * Held seats are not sold. The catalog counts them as taken, so the
+ * aggregates keep a ledger of the seats held per route and count only
+ * taken minus held seats as sold: a hold moves seats into the ledger, a
+ * confirmed hold moves them out of it into the sales, a released or
+ * expired hold frees them. The ledger is kept by events only, never
+ * rebuilt, so a rebuild always subtracts the holds known at that time.
+ *
+ * Writers update mutable arrays under a short lock. Readers get an
+ * immutable {@link Snapshot}: {@link #snapshot()} returns the last
+ * published one without waiting, republishing first if there were changes
+ * and no writer holds the lock. Per-route figures come straight from the
+ * catalog, see {@link #routeStats(RouteCatalog.Snapshot, int)}.
+ */
+public class OccupancyAnalytics {
+    private static final int HOURS = 24;
+
+    private final RouteCatalog catalog;
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Snapshot published;
+    private volatile boolean dirty;
+    private volatile boolean stale;
+
+    // Guarded by lock
+    private RouteTable builtTable;
+    private long builtVersion;
+    private long changeCount;
+    private final Map<Integer, Integer> heldByRoute = new HashMap<>();
+    private Map<Long, Integer> pairIndexes;
+    private String[] pairLabels;
+    private int[] pairRoutes;
+    private long[] pairSold;
+    private long[] pairCapacity;
+    private double[] pairRevenue;
+    private final int[] hourRoutes = new int[HOURS];
+    private final long[] hourSold = new long[HOURS];
+    private final long[] hourCapacity = new long[HOURS];
+    private final double[] hourRevenue = new double[HOURS];
+
+    public OccupancyAnalytics(RouteCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * Occupancy and revenue of a group of routes.
+     */
+    public static final class Stats {
+        private final String label;
+        private final int routes;
+        private final long soldSeats;
+        private final long totalSeats;
+        private final double revenue;
+
+        Stats(String label, int routes, long soldSeats, long totalSeats, double revenue) {
+            this.label = label;
+            this.routes = routes;
+            this.soldSeats = soldSeats;
+            this.totalSeats = totalSeats;
+            this.revenue = revenue;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public int getRoutes() {
+            return routes;
+        }
+
+        public long getSoldSeats() {
+            return soldSeats;
+        }
+
+        public long getTotalSeats() {
+            return totalSeats;
+        }
+
+        public double getRevenue() {
+            return revenue;
+        }
+
+        /**
+         * Gets the share of seats sold, from 0 to 1.
+         */
+        public double getLoadFactor() {
+            return totalSeats == 0 ? 0 : (double) soldSeats / totalSeats;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %.1f%% full (%d/%d seats), revenue %.2f lei",
+                    label, getLoadFactor() * 100, soldSeats, totalSeats, revenue);
+        }
+    }
+
+    /**
+     * Immutable, internally consistent view of the aggregates: every change
+     * is either in all of them or in none.
+     */
+    public static final class Snapshot {
+        private final long changeCount;
+        private final Stats total;
+        private final List<Stats> hours;
+        private final List<Stats> cityPairs;
+
+        Snapshot(long changeCount, Stats total, List<Stats> hours, List<Stats> cityPairs) {
+            this.changeCount = changeCount;
+            this.total = total;
+            this.hours = hours;
+            this.cityPairs = cityPairs;
+        }
+
+        /**
+         * Gets a number that grows with every change and rebuild; equal
+         * numbers mean equal figures.
+         */
+        public long getChangeCount() {
+            return changeCount;
+        }
+
+        public Stats getTotal() {
+            return total;
+        }
+
+        /**
+         * Gets the figures per departure hour, index 0 to 23.
+         */
+        public List<Stats> getHours() {
+            return hours;
+        }
+
+        /**
+         * Gets the figures of every city pair, in no particular order.
+         */
+        public List<Stats> getCityPairs() {
+            return cityPairs;
+        }
+
+        /**
+         * Gets the city pairs with the highest revenue.
+         */
+        public List<Stats> getTopCityPairs(int limit) {
+            List<Stats> sorted = new ArrayList<>(cityPairs);
+            sorted.sort(Comparator.comparingDouble(Stats::getRevenue).reversed());
+            return sorted.subList(0, Math.min(limit, sorted.size()));
+        }
+    }
+
+    /**
+     * Gets the figures of one route from a catalog snapshot, or null if it
+     * does not exist. Seats sold are total minus available minus held seats.
+     */
+    public static Stats routeStats(RouteCatalog.Snapshot snapshot, int routeId, int heldSeats) {
+        int row = snapshot.rowOf(routeId);
+        if (row < 0) {
+            return null;
+        }
+        RouteTable table = snapshot.getTable();
+        int sold = table.getTotalSeats(row) - table.getAvailableSeats(row) - heldSeats;
+        CityIndex cities = table.getCities();
+        return new Stats("#" + routeId + " " + cities.getCityName(table.getSourceCityId(row)) + " -> "
+                + cities.getCityName(table.getDestinationCityId(row)),
+                1, sold, table.getTotalSeats(row), sold * table.getPrice(row));
+    }
+
+    /**
+     * Records a seat change that is in the given catalog snapshot.
+     *
+     * @param snapshot  the catalog snapshot the change produced, or null if
+     *                  the catalog is not loaded
+     * @param seatDelta seats taken (negative if freed)
+     * @param heldDelta seats of {@code seatDelta} that are held rather than
+     *                  sold (negative if a hold gave them back)
+     */
+    public void recordSeatChange(RouteCatalog.Snapshot snapshot, int routeId, int seatDelta, int heldDelta) {
+        lock.lock();
+        try {
+            if (heldDelta != 0) {
+                heldByRoute.merge(routeId, heldDelta, (held, delta) -> held + delta == 0 ? null : held + delta);
+            }
+            if (builtTable == null || snapshot == null) {
+                return; // Not built yet; the build sees the change
+            }
+            // The build saw the taken seats of changes up to its version, but
+            // never the ledger update that comes with them
+            int soldDelta = snapshot.getVersion() <= builtVersion ? -heldDelta : seatDelta - heldDelta;
+            if (soldDelta == 0) {
+                return;
+            }
+            RouteTable table = snapshot.getTable();
+            if (!sameStructure(table)) {
+                build(snapshot); // Routes added or reloaded
+                return;
+            }
+            int row = snapshot.rowOf(routeId);
+            if (row < 0) {
+                return;
+            }
+            int pair = pairIndexes.get(pairKey(table.getSourceCityId(row), table.getDestinationCityId(row)));
+            int hour = table.getDepartureMinute(row) / 60;
+            double revenue = soldDelta * table.getPrice(row);
+            pairSold[pair] += soldDelta;
+            pairRevenue[pair] += revenue;
+            hourSold[hour] += soldDelta;
+            hourRevenue[hour] += revenue;
+            changeCount++;
+            dirty = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the latest figures without blocking. Only the first call waits,
+     * while it builds the aggregates (one pass over the catalog).
+     */
+    public Snapshot snapshot() {
+        Snapshot current = published;
+        if (current == null) {
+            RouteCatalog.Snapshot source = catalog.snapshot(); // Loaded outside the lock
+            lock.lock();
+            try {
+                if (builtTable == null) {
+                    build(source);
+                }
+                return publish();
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (dirty && lock.tryLock()) {
+            try {
+                RouteCatalog.Snapshot source = catalog.peek();
+                if (stale && source != null) {
+                    build(source);
+                }
+                return publish();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Marks the aggregates for a rebuild after routes were added or
+     * reloaded; the next {@link #snapshot()} rebuilds them.
+     */
+    public void markStale() {
+        stale = true;
+        dirty = true;
+    }
+
+    private boolean sameStructure(RouteTable table) {
+        return table.getCities() == builtTable.getCities() && table.size() == builtTable.size();
+    }
+
+    private static long pairKey(int sourceCityId, int destinationCityId) {
+        return (long) sourceCityId << 32 | (destinationCityId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Rebuilds every aggregate from a catalog snapshot. Caller holds the lock.
+     */
+    private void build(RouteCatalog.Snapshot snapshot) {
+        RouteTable table = snapshot.getTable();
+        int size = table.size();
+        CityIndex cities = table.getCities();
+        pairIndexes = new HashMap<>();
+        String[] labels = new String[16];
+        int[] routes = new int[16];
+        long[] sold = new long[16];
+        long[] capacity = new long[16];
+        double[] revenue = new double[16];
+        Arrays.fill(hourRoutes, 0);
+        Arrays.fill(hourSold, 0);
+        Arrays.fill(hourCapacity, 0);
+        Arrays.fill(hourRevenue, 0);
+
+        for (int row = 0; row < size; row++) {
+            int source = table.getSourceCityId(row);
+            int destination = table.getDestinationCityId(row);
+            Integer pair = pairIndexes.get(pairKey(source, destination));
+            if (pair == null) {
+                pair = pairIndexes.size();
+                pairIndexes.put(pairKey(source, destination), pair);
+                if (pair == labels.length) {
+                    int grown = pair * 2;
+                    labels = Arrays.copyOf(labels, grown);
+                    routes = Arrays.copyOf(routes, grown);
+                    sold = Arrays.copyOf(sold, grown);
+                    capacity = Arrays.copyOf(capacity, grown);
+                    revenue = Arrays.copyOf(revenue, grown);
+                }
+                labels[pair] = cities.getCityName(source) + " -> " + cities.getCityName(destination);
+            }
+            int seats = table.getTotalSeats(row);
+            int taken = seats - table.getAvailableSeats(row) - heldByRoute.getOrDefault(table.getId(row), 0);
+            double earned = taken * table.getPrice(row);
+            int hour = table.getDepartureMinute(row) / 60;
+            routes[pair]++;
+            sold[pair] += taken;
+            capacity[pair] += seats;
+            revenue[pair] += earned;
+            hourRoutes[hour]++;
+            hourSold[hour] += taken;
+            hourCapacity[hour] += seats;
+            hourRevenue[hour] += earned;
+        }
+
+        pairLabels = labels;
+        pairRoutes = routes;
+        pairSold = sold;
+        pairCapacity = capacity;
+        pairRevenue = revenue;
+        builtTable = table;
+        builtVersion = snapshot.getVersion();
+        stale = false;
+        changeCount++;
+        dirty = true;
+    }
+
+    /**
+     * Copies the aggregates into a new snapshot and publishes it. Caller
+     * holds the lock.
+     */
+    private Snapshot publish() {
+        int pairCount = pairIndexes.size();
+        Stats[] pairs = new Stats[pairCount];
+        int routes = 0;
+        long sold = 0;
+        long capacity = 0;
+        double revenue = 0;
+        for (int pair = 0; pair < pairCount; pair++) {
+            pairs[pair] = new Stats(pairLabels[pair], pairRoutes[pair], pairSold[pair], pairCapacity[pair], pairRevenue[pair]);
+            routes += pairRoutes[pair];
+            sold += pairSold[pair];
+            capacity += pairCapacity[pair];
+            revenue += pairRevenue[pair];
+        }
+        Stats[] hours = new Stats[HOURS];
+        for (int hour = 0; hour < HOURS; hour++) {
+            hours[hour] = new Stats(String.format("%02d:00", hour),
+                    hourRoutes[hour], hourSold[hour], hourCapacity[hour], hourRevenue[hour]);
+        }
+        Snapshot snapshot = new Snapshot(changeCount, new Stats("All routes", routes, sold, capacity, revenue),
+                Collections.unmodifiableList(Arrays.asList(hours)),
+                Collections.unmodifiableList(Arrays.asList(pairs)));
+        published = snapshot;
+        dirty = false;
+        return snapshot;
+    }
+}
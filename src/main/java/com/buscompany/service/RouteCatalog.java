@@ -0,0 +1,495 @@
+package com.buscompany.service;
+
+import com.buscompany.model.Route;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of the route catalog.
+ *
+ * The first read loads all routes from the repository into an immutable,
+ * versioned {@link Snapshot} backed by a columnar {@link RouteTable}.
+ * Later reads are served from memory. Seat changes patch the seat column
+ * of the snapshot (copy-on-write) and bump its version instead of throwing
+ * the whole catalog away.
+ *
+ * Route objects returned by a snapshot are views created on demand;
+ * changing them does not affect the catalog.
+ */
+public class RouteCatalog {
+    private final Supplier<RouteTable> loader;
+    private final LongSupplier changeSequence;
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private volatile long lastVersion;
+
+    /**
+     * @param loader loads every route from persistent storage
+     */
+    public RouteCatalog(Supplier<RouteTable> loader) {
+        this(loader, () -> 0);
+    }
+
+    /**
+     * @param loader         loads every route from persistent storage
+     * @param changeSequence called right after each load; gives the last
+     *                       seat change feed sequence number the loaded seat
+     *                       counts include
+     */
+    public RouteCatalog(Supplier<RouteTable> loader, LongSupplier changeSequence) {
+        this.loader = loader;
+        this.changeSequence = changeSequence;
+    }
+
+    /**
+     * Gets the current snapshot, loading it on first use.
+     */
+    public Snapshot snapshot() {
+        Snapshot snapshot = current.get();
+        if (snapshot != null) {
+            hits.incrementAndGet();
+            return snapshot;
+        }
+        synchronized (this) {
+            snapshot = current.get();
+            if (snapshot != null) {
+                hits.incrementAndGet();
+                return snapshot;
+            }
+            misses.incrementAndGet();
+            // Versions keep increasing across reloads so readers can order changes
+            RouteTable table = loader.get();
+            snapshot = Snapshot.build(table, lastVersion + 1, changeSequence.getAsLong());
+            current.set(snapshot);
+            return snapshot;
+        }
+    }
+
+    /**
+     * Gets the current snapshot if it is loaded, without loading it.
+     */
+    public Snapshot peek() {
+        return current.get();
+    }
+
+    /**
+     * Patches the available seats of one route in the current snapshot.
+     * Does nothing if the catalog has not been loaded yet.
+     *
+     * The seat count is read after the snapshot inside the retry loop, so
+     * concurrent patches for the same route can never leave an older
+     * count in place of a newer one.
+     *
+     * @return the snapshot containing the change, or null if not loaded
+     */
+    public Snapshot applySeatChange(int routeId, IntSupplier availableSeats) {
+        while (true) {
+            Snapshot snapshot = current.get();
+            if (snapshot == null) {
+                return null;
+            }
+            Snapshot patched = snapshot.withSeats(routeId, availableSeats.getAsInt());
+            if (patched == snapshot || current.compareAndSet(snapshot, patched)) {
+                return patched;
+            }
+        }
+    }
+
+    /**
+     * Adds a newly persisted route to the current snapshot.
+     * Does nothing if the catalog has not been loaded yet.
+     */
+    public void addRoute(Route route) {
+        while (true) {
+            Snapshot snapshot = current.get();
+            if (snapshot == null || current.compareAndSet(snapshot, snapshot.withRoute(route))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Drops the cached snapshot; the next read reloads from storage.
+     */
+    public void invalidate() {
+        synchronized (this) {
+            Snapshot previous = current.getAndSet(null);
+            if (previous != null) {
+                lastVersion = previous.getVersion();
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Immutable, versioned view of all routes.
+     *
+     * The lookup index (route ID and city pair to row) only depends on the
+     * set of routes, so patched snapshots share it.
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final long changeSequence;
+        private final RouteTable table;
+        private final Index index;
+
+        private Snapshot(long version, long changeSequence, RouteTable table, Index index) {
+            this.version = version;
+            this.changeSequence = changeSequence;
+            this.table = table;
+            this.index = index;
+        }
+
+        static Snapshot build(RouteTable table, long version, long changeSequence) {
+            return new Snapshot(version, changeSequence, table, Index.build(table));
+        }
+
+        /**
+         * Gets the snapshot version; it increases with every change.
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Gets the sequence number of the last seat change feed entry the
+         * loaded seat counts include; patches keep the number of the load.
+         */
+        public long getChangeSequence() {
+            return changeSequence;
+        }
+
+        /**
+         * Gets the underlying columnar table.
+         */
+        public RouteTable getTable() {
+            return table;
+        }
+
+        /**
+         * Gets all routes in storage order. Route objects are created as
+         * elements are read.
+         */
+        public List<Route> getRoutes() {
+            return new RowView(table, null);
+        }
+
+        /**
+         * Gets all routes sorted by source city, then departure time. The sort
+         * order is computed once per catalog structure; Route objects are
+         * created as elements are read.
+         */
+        public List<Route> getRoutesSortedBySourceAndDeparture() {
+            return new RowView(table, index.sortedRows(table));
+        }
+
+        /**
+         * Gets a route by ID, or null if it does not exist.
+         */
+        public Route getRoute(int routeId) {
+            int row = index.rowOf(routeId, table);
+            return row < 0 ? null : table.toRoute(row);
+        }
+
+        /**
+         * Gets the table row of a route ID, or -1 if it does not exist.
+         */
+        int rowOf(int routeId) {
+            return index.rowOf(routeId, table);
+        }
+
+        /**
+         * Gets the available seats of a route without creating a Route,
+         * or 0 if it does not exist.
+         */
+        public int getAvailableSeats(int routeId) {
+            int row = index.rowOf(routeId, table);
+            return row < 0 ? 0 : table.getAvailableSeats(row);
+        }
+
+        /**
+         * Gets the routes between two cities, ordered by departure time.
+         */
+        public List<Route> getRoutesBetween(String source, String destination) {
+            CityIndex cities = table.getCities();
+            int[] rows = index.rowsByPair.get(Index.pairKey(cities.getCityId(source), cities.getCityId(destination)));
+            if (rows == null) {
+                return Collections.emptyList();
+            }
+            Route[] result = new Route[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                result[i] = table.toRoute(rows[i]);
+            }
+            return Collections.unmodifiableList(Arrays.asList(result));
+        }
+
+        /**
+         * Gets the origin-to-destination city index for these routes.
+         */
+        public CityIndex getCityIndex() {
+            return table.getCities();
+        }
+
+        /**
+         * Gets the journey planner for these routes, building it on first use.
+         * Patched snapshots share it, since seat changes do not alter the network.
+         */
+        public JourneyPlanner getJourneyPlanner() {
+            return index.journeyPlanner(table);
+        }
+
+        /**
+         * Gets the city type-ahead index for these routes, building it on
+         * first use. Patched snapshots share it.
+         */
+        public CitySearchIndex getCitySearch() {
+            return index.citySearch(table);
+        }
+
+        /**
+         * Finds source cities whose name (or a word of it) starts with the
+         * query, ignoring case and diacritics, most routes first.
+         */
+        public List<String> searchSourceCities(String query, int limit) {
+            return getCitySearch().findSources(query, limit);
+        }
+
+        /**
+         * Finds the cities reachable from a source city whose name (or a
+         * word of it) starts with the query, most routes from the source
+         * first.
+         */
+        public List<String> searchDestinationCities(String sourceCity, String query, int limit) {
+            CityIndex cities = table.getCities();
+            int origin = cities.getCityId(sourceCity);
+            if (origin < 0) {
+                return Collections.emptyList();
+            }
+            return getCitySearch().findAmong(cities.getDestinationIds(origin), query, limit, destination -> {
+                int[] rows = index.rowsByPair.get(Index.pairKey(origin, destination));
+                return rows == null ? 0 : rows.length;
+            });
+        }
+
+        public int size() {
+            return table.size();
+        }
+
+        Snapshot withRoute(Route route) {
+            RouteTable extended = table.withRoute(route);
+            return new Snapshot(version + 1, changeSequence, extended, index.withRow(extended, table.size()));
+        }
+
+        Snapshot withSeats(int routeId, int availableSeats) {
+            int row = index.rowOf(routeId, table);
+            if (row < 0 || table.getAvailableSeats(row) == availableSeats) {
+                return this;
+            }
+            return new Snapshot(version + 1, changeSequence, table.withAvailableSeats(row, availableSeats), index);
+        }
+    }
+
+    /**
+     * Read-only list of table rows, in storage order or in a given row order.
+     */
+    private static final class RowView extends AbstractList<Route> implements RandomAccess {
+        private final RouteTable table;
+        private final int[] rows;
+
+        RowView(RouteTable table, int[] rows) {
+            this.table = table;
+            this.rows = rows;
+        }
+
+        @Override
+        public Route get(int index) {
+            return table.toRoute(rows == null ? index : rows[index]);
+        }
+
+        @Override
+        public int size() {
+            return rows == null ? table.size() : rows.length;
+        }
+    }
+
+    private static final class Index {
+        /** Rows ordered by route ID, for binary search. */
+        private final int[] rowsById;
+        private final Map<Long, int[]> rowsByPair;
+        private volatile int[] sortedRows;
+        private volatile JourneyPlanner journeyPlanner;
+        private volatile CitySearchIndex citySearch;
+
+        private Index(int[] rowsById, Map<Long, int[]> rowsByPair) {
+            this.rowsById = rowsById;
+            this.rowsByPair = rowsByPair;
+        }
+
+        static Index build(RouteTable table) {
+            int size = table.size();
+
+            // Row IDs are usually already ascending (AUTOINCREMENT in storage order)
+            int[] rowsById = new int[size];
+            boolean ascending = true;
+            for (int row = 0; row < size; row++) {
+                rowsById[row] = row;
+                ascending &= row == 0 || table.getId(row - 1) < table.getId(row);
+            }
+            if (!ascending) {
+                long[] keys = new long[size];
+                for (int row = 0; row < size; row++) {
+                    keys[row] = (long) table.getId(row) << 32 | row;
+                }
+                Arrays.sort(keys);
+                for (int i = 0; i < size; i++) {
+                    rowsById[i] = (int) keys[i];
+                }
+            }
+
+            // Group rows by city pair, each group ordered by departure then row
+            Map<Long, Integer> pairOrdinals = new HashMap<>();
+            long[] keys = new long[size];
+            for (int row = 0; row < size; row++) {
+                long pair = pairKey(table.getSourceCityId(row), table.getDestinationCityId(row));
+                Integer ordinal = pairOrdinals.get(pair);
+                if (ordinal == null) {
+                    ordinal = pairOrdinals.size();
+                    pairOrdinals.put(pair, ordinal);
+                }
+                keys[row] = (long) ordinal << 42 | (long) table.getDepartureMinute(row) << 31 | row;
+            }
+            Arrays.sort(keys);
+
+            Map<Long, int[]> rowsByPair = new HashMap<>(pairOrdinals.size() * 2);
+            int start = 0;
+            while (start < size) {
+                long ordinal = keys[start] >>> 42;
+                int end = start + 1;
+                while (end < size && keys[end] >>> 42 == ordinal) {
+                    end++;
+                }
+                int[] rows = new int[end - start];
+                for (int i = start; i < end; i++) {
+                    rows[i - start] = (int) (keys[i] & ((1L << 31) - 1));
+                }
+                int first = rows[0];
+                rowsByPair.put(pairKey(table.getSourceCityId(first), table.getDestinationCityId(first)), rows);
+                start = end;
+            }
+            return new Index(rowsById, rowsByPair);
+        }
+
+        /**
+         * Gets the row of a route ID, or -1 if it does not exist.
+         */
+        int rowOf(int routeId, RouteTable table) {
+            int position = positionOf(routeId, table);
+            return position < rowsById.length && position >= 0 && table.getId(rowsById[position]) == routeId
+                    ? rowsById[position] : -1;
+        }
+
+        /**
+         * Returns an index that also covers the given row.
+         */
+        Index withRow(RouteTable table, int row) {
+            int position = positionOf(table.getId(row), table);
+            int[] newRowsById = new int[rowsById.length + 1];
+            System.arraycopy(rowsById, 0, newRowsById, 0, position);
+            newRowsById[position] = row;
+            System.arraycopy(rowsById, position, newRowsById, position + 1, rowsById.length - position);
+
+            long key = pairKey(table.getSourceCityId(row), table.getDestinationCityId(row));
+            int[] existing = rowsByPair.getOrDefault(key, new int[0]);
+            int insertAt = existing.length;
+            while (insertAt > 0 && table.getDepartureMinute(existing[insertAt - 1]) > table.getDepartureMinute(row)) {
+                insertAt--;
+            }
+            int[] rows = new int[existing.length + 1];
+            System.arraycopy(existing, 0, rows, 0, insertAt);
+            rows[insertAt] = row;
+            System.arraycopy(existing, insertAt, rows, insertAt + 1, existing.length - insertAt);
+            Map<Long, int[]> newRowsByPair = new HashMap<>(rowsByPair);
+            newRowsByPair.put(key, rows);
+
+            return new Index(newRowsById, newRowsByPair);
+        }
+
+        int[] sortedRows(RouteTable table) {
+            int[] rows = sortedRows;
+            if (rows == null) {
+                rows = table.sortBySourceAndDeparture();
+                sortedRows = rows;
+            }
+            return rows;
+        }
+
+        JourneyPlanner journeyPlanner(RouteTable table) {
+            JourneyPlanner planner = journeyPlanner;
+            if (planner == null) {
+                synchronized (this) {
+                    planner = journeyPlanner;
+                    if (planner == null) {
+                        planner = new JourneyPlanner(table);
+                        journeyPlanner = planner;
+                    }
+                }
+            }
+            return planner;
+        }
+
+        CitySearchIndex citySearch(RouteTable table) {
+            CitySearchIndex search = citySearch;
+            if (search == null) {
+                synchronized (this) {
+                    search = citySearch;
+                    if (search == null) {
+                        search = new CitySearchIndex(table);
+                        citySearch = search;
+                    }
+                }
+            }
+            return search;
+        }
+
+        /**
+         * Binary search for the first position in rowsById whose ID is not
+         * less than the given one.
+         */
+        private int positionOf(int routeId, RouteTable table) {
+            int low = 0;
+            int high = rowsById.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (table.getId(rowsById[mid]) < routeId) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        static long pairKey(int sourceCityId, int destinationCityId) {
+            return (long) sourceCityId << 32 | (destinationCityId & 0xFFFFFFFFL);
+        }
+    }
+}
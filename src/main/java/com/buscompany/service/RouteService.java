@@ -1,11 +1,32 @@
 package com.buscompany.service;
 
+import com.buscompany.model.Journey;
 import com.buscompany.model.Route;
+import com.buscompany.model.SeatHold;
+import com.buscompany.model.SeatMap;
+import com.buscompany.repository.DatabaseBackup;
+import com.buscompany.repository.DatabaseLock;
+import com.buscompany.repository.RouteImporter;
 import com.buscompany.repository.RouteRepository;
+import com.buscompany.repository.SeatChangeFeed;
+import com.buscompany.repository.SeatWriteBatcher;
+import com.buscompany.util.AppConfig;
+import com.buscompany.util.PerformanceMetrics;
+import com.buscompany.util.PerformanceMetrics.Operation;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.stream.Collectors;
 
 /**
@@ -16,22 +37,182 @@ import java.util.stream.Collectors;
  * - Manages booking logic and seat availability
  * - Coordinates between Controller and Repository layers
  * - Provides observable lists for JavaFX UI updates
+ * - Applies seat changes made by other processes sharing the database
+ *   (see {@link SeatChangeFeed}), so their bookings reach local observers
+ * - Holds seats for a limited time while a customer pays (see {@link SeatHolds})
  */
 public class RouteService {
+    private static final int MIN_CONNECTION_MINUTES = AppConfig.getInt("journey.min-connection-minutes", 15);
+    private static final int MAX_JOURNEY_LEGS = AppConfig.getInt("journey.max-legs", 4);
+    private static final int MAX_JOURNEY_RESULTS = AppConfig.getInt("journey.max-results", 10);
+    private static final int MAX_BOOKING_ATTEMPTS = Math.max(1, AppConfig.getInt("booking.max-attempts", 3));
+
     private final RouteRepository repository;
-    private final ObservableList<BookingObserver> observers = FXCollections.observableArrayList();
+    private final List<BookingObserver> observers = new CopyOnWriteArrayList<>();
+    private final ConcurrentMap<Integer, Set<SeatChangeListener>> seatListeners = new ConcurrentHashMap<>();
+    private final RouteCatalog catalog;
+    private final SeatInventory seatInventory;
+    private final OccupancyAnalytics analytics;
+    private final ConcurrentMap<Integer, SeatMap> seatMaps = new ConcurrentHashMap<>();
+    private final SeatHolds holds = new SeatHolds(this::expireHold);
+    private final SeatWriteBatcher seatWriter; // null with booking.persistence=journal
+    private final SeatJournal journal;         // null with booking.persistence=database
+    private final SeatChangeFeed changeFeed;   // null with the journal or database.change-feed.enabled=false
+    private final DatabaseBackup backup = new DatabaseBackup();
+    private final DatabaseLock databaseLock;
+    private volatile long scannedChangeSequence;
 
     public RouteService() {
+        boolean journaled = "journal".equalsIgnoreCase(AppConfig.getString("booking.persistence", "database"));
+        try {
+            // The journal overwrites the stored seat counts, so it must not share the database
+            this.databaseLock = DatabaseLock.acquire(journaled);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot lock the database", e);
+        }
         this.repository = new RouteRepository();
         this.repository.initializeDatabase();
+        if (journaled) {
+            this.journal = openJournal();
+            this.seatWriter = null;
+        } else {
+            this.journal = null;
+            this.seatWriter = new SeatWriteBatcher(repository);
+        }
+        this.catalog = new RouteCatalog(() -> {
+            RouteTable.Builder builder = RouteTable.builder();
+            if (journal == null) {
+                // Stored counts do not include this process's holds and bookings in flight
+                scannedChangeSequence = repository.scanAllRoutes((id, source, destination, departure, arrival,
+                        total, available, price) -> builder.accept(id, source, destination, departure, arrival,
+                        total, Math.max(0, available - reservedSeats(id)), price));
+            } else {
+                // Seat counts come from the journaled seat maps, not the routes table
+                repository.scanAllRoutes((id, source, destination, departure, arrival, total, available, price) ->
+                        builder.accept(id, source, destination, departure, arrival, total,
+                                journaledSeats(id, available), price));
+            }
+            return builder.build();
+        }, () -> scannedChangeSequence);
+        this.seatInventory = new SeatInventory(routeId -> {
+            RouteCatalog.Snapshot snapshot = catalog.snapshot();
+            return new SeatInventory.StoredSeats(snapshot.getAvailableSeats(routeId), snapshot.getChangeSequence());
+        });
+        this.analytics = new OccupancyAnalytics(catalog);
+        this.changeFeed = journal == null && AppConfig.getBoolean("database.change-feed.enabled", true)
+                ? openChangeFeed() : null;
+    }
+
+    /**
+     * Gets the seats reserved on a route; 0 while the inventory is being
+     * created (its loader reads the catalog).
+     */
+    private int reservedSeats(int routeId) {
+        SeatInventory inventory = seatInventory;
+        return inventory == null ? 0 : inventory.getReservedSeats(routeId);
+    }
+
+    /**
+     * Starts tailing seat changes committed by other processes. Starting at
+     * the current end is safe: counters loaded later come from a catalog
+     * that already includes everything up to its own sequence number.
+     */
+    private SeatChangeFeed openChangeFeed() {
+        SeatChangeFeed feed = new SeatChangeFeed(new SeatChangeFeed.Listener() {
+            @Override
+            public void onRemoteChange(SeatChangeFeed.SeatChange change) {
+                applyRemoteChange(change);
+            }
+
+            @Override
+            public void onChangesMissed() {
+                reloadSeatState();
+            }
+        });
+        try {
+            feed.start(repository.getLastSeatChangeSequence());
+            return feed;
+        } catch (SQLException e) {
+            System.err.println("Seat change feed disabled: " + e.getMessage());
+            feed.close();
+            return null;
+        }
+    }
+
+    private SeatJournal openJournal() {
+        try {
+            SeatJournal opened = new SeatJournal(repository, seatMaps, holds);
+            System.out.println("Booking journal: " + opened.recover());
+            return opened;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the booking journal", e);
+        }
+    }
+
+    /**
+     * Gets the free seats of a route from its journaled seat map, or the
+     * stored count if the route was never booked through the journal.
+     */
+    private int journaledSeats(int routeId, int storedSeats) {
+        SeatMap seatMap = seatMaps.get(routeId);
+        if (seatMap == null) {
+            return storedSeats;
+        }
+        synchronized (seatMap) {
+            return seatMap.getFreeCount();
+        }
     }
 
     /**
      * Gets all routes sorted by source city and departure time using Java Streams.
      * REQUIREMENT: Must use Java Streams for sorting (1 point)
+     *
+     * The stream sort runs over the catalog's primitive columns (see
+     * {@link RouteTable#sortBySourceAndDeparture()}); the returned list
+     * creates Route objects only for the elements that are read.
      */
     public List<Route> getAllRoutesSorted() {
-        return repository.getAllRoutes().stream()
+        return catalog.snapshot().getRoutesSortedBySourceAndDeparture();
+    }
+
+    /**
+     * Gets a route by ID from the catalog, with its current seat count,
+     * or null if it does not exist.
+     */
+    public Route getRoute(int routeId) {
+        return catalog.snapshot().getRoute(routeId);
+    }
+
+    /**
+     * Gets one page of routes sorted by source city, departure time and ID.
+     * Served by an index in the database (keyset pagination), so the first
+     * page does not wait for the catalog to load.
+     *
+     * @param after the last route of the previous page, or null for the first page
+     */
+    public List<Route> getRoutesPage(Route after, int limit) {
+        List<Route> page = repository.getRoutesPage(after, limit);
+        if (journal != null) {
+            page.replaceAll(route -> route.withAvailableSeats(journaledSeats(route.getId(), route.getAvailableSeats())));
+        }
+        return page;
+    }
+
+    /**
+     * Counts all routes, from the catalog if it is already loaded,
+     * otherwise from the database.
+     */
+    public int countRoutes() {
+        RouteCatalog.Snapshot snapshot = catalog.peek();
+        return snapshot != null ? snapshot.size() : repository.countRoutes();
+    }
+
+    /**
+     * Sorts Route objects by source city, then departure time, using Java
+     * Streams. Kept as the object-based baseline for the benchmarks.
+     */
+    public static List<Route> sortBySourceAndDeparture(List<Route> routes) {
+        return routes.stream()
                 .sorted((r1, r2) -> {
                     // First sort by source city
                     int sourceCityComparison = r1.getSourceCity().compareTo(r2.getSourceCity());
@@ -48,46 +229,618 @@ public class RouteService {
      * Gets routes for selected source and destination, sorted by departure time.
      */
     public ObservableList<Route> getRoutesBySourceAndDestination(String source, String destination) {
-        List<Route> routes = repository.getRoutesBySourceAndDestination(source, destination);
+        List<Route> routes = catalog.snapshot().getRoutesBetween(source, destination);
         return FXCollections.observableArrayList(routes);
     }
 
     /**
-     * Gets all source cities.
+     * Finds itineraries between two cities, including ones with transfers.
+     * Returns earliest-arrival journeys for successive departures plus the
+     * fewest-transfer journey, ordered by departure time. Every leg must
+     * have at least {@code seats} seats left.
+     */
+    public List<Journey> findJourneys(String source, String destination, int seats) {
+        RouteCatalog.Snapshot snapshot = catalog.snapshot();
+        return snapshot.getJourneyPlanner().findJourneys(snapshot, source, destination,
+                MIN_CONNECTION_MINUTES, seats, MAX_JOURNEY_LEGS, MAX_JOURNEY_RESULTS);
+    }
+
+    /**
+     * Gets all source cities (served from the in-memory city index).
      */
     public ObservableList<String> getAllSourceCities() {
-        List<String> cities = repository.getAllSourceCities();
+        List<String> cities = catalog.snapshot().getCityIndex().getSourceCities();
         return FXCollections.observableArrayList(cities);
     }
 
     /**
-     * Gets destination cities for a given source city.
+     * Gets destination cities for a given source city (served from the in-memory city index).
      */
     public ObservableList<String> getDestinationCitiesForSource(String sourceCity) {
-        List<String> cities = repository.getDestinationCitiesForSource(sourceCity);
+        List<String> cities = catalog.snapshot().getCityIndex().getDestinationCities(sourceCity);
         return FXCollections.observableArrayList(cities);
     }
 
+    /**
+     * Finds source cities for type-ahead: names (or a word of them) starting
+     * with the query, ignoring case and diacritics, most routes first.
+     */
+    public List<String> searchSourceCities(String query, int limit) {
+        return catalog.snapshot().searchSourceCities(query, limit);
+    }
+
+    /**
+     * Finds destination cities of a source city for type-ahead, most routes
+     * from the source first.
+     */
+    public List<String> searchDestinationCities(String sourceCity, String query, int limit) {
+        return catalog.snapshot().searchDestinationCities(sourceCity, query, limit);
+    }
+
+    /**
+     * Adds a new route, keeping the catalog and city index current.
+     *
+     * @return the stored route with its generated ID, or null on failure
+     */
+    public Route addRoute(Route route) {
+        Route stored = repository.addRoute(route);
+        if (stored != null) {
+            catalog.addRoute(stored);
+            analytics.markStale();
+        }
+        return stored;
+    }
+
+    /**
+     * Bulk-imports routes from a CSV file (see {@link RouteImporter}) and
+     * reloads the catalog. Rows committed before a failure or interruption
+     * stay imported; calling this again on the same file resumes from there.
+     */
+    public RouteImporter.ImportProgress importRoutes(Path file, RouteImporter.ProgressListener listener)
+            throws IOException, SQLException {
+        try {
+            return new RouteImporter().importFile(file, listener);
+        } finally {
+            catalog.invalidate();
+            analytics.markStale();
+        }
+    }
+
     /**
      * Books tickets for a route and updates available seats.
      * Notifies all observers of the booking.
+     *
+     * @see #bookSeats(Route, int)
      */
     public boolean bookTickets(Route route, int ticketCount) {
-        if (route.getAvailableSeats() < ticketCount) {
-            return false; // Not enough seats
-        }
-        
-        // Update available seats
-        int newAvailableSeats = route.getAvailableSeats() - ticketCount;
-        route.setAvailableSeats(newAvailableSeats);
-        repository.updateAvailableSeats(route.getId(), newAvailableSeats);
-        
-        // Notify observers of the booking
-        notifyObservers(route, ticketCount);
-        
+        return bookSeats(route, ticketCount) != null;
+    }
+
+    /**
+     * Books tickets and assigns seats: adjacent ones if such a run is free,
+     * otherwise the lowest-numbered free seats.
+     *
+     * Safe to call concurrently: seats are first reserved on the route's
+     * in-memory counter (CAS, no global lock) and picked from its in-memory
+     * seat map, then taken in the database with a conditional decrement
+     * that also checks the seats against the stored seat map. Concurrent
+     * bookings are group-committed by the {@link SeatWriteBatcher}; this
+     * call returns once its batch is committed. With
+     * {@code booking.persistence=journal} the seats are appended to the
+     * {@link SeatJournal} instead and no SQL runs at all. The passed route
+     * is never modified or trusted for the availability check; the cached
+     * catalog is patched with the new seat count instead.
+     *
+     * @return the assigned seat numbers, or null if the booking failed
+     */
+    public int[] bookSeats(Route route, int ticketCount) {
+        return book(route, ticketCount, null);
+    }
+
+    /**
+     * Books exactly the given seat numbers, all or nothing.
+     *
+     * @return true if every seat was free and is now booked
+     */
+    public boolean bookSeats(Route route, int[] seatNumbers) {
+        return book(route, seatNumbers.length, seatNumbers) != null;
+    }
+
+    private int[] book(Route route, int ticketCount, int[] requestedSeats) {
+        long start = System.nanoTime();
+        try {
+            int[] seats = reserveAndPersist(route, ticketCount, requestedSeats);
+            if (seats == null) {
+                PerformanceMetrics.recordRejectedBooking();
+            }
+            return seats;
+        } catch (RuntimeException e) {
+            PerformanceMetrics.recordError(Operation.BOOK_TICKETS);
+            throw e;
+        } finally {
+            PerformanceMetrics.record(Operation.BOOK_TICKETS, start);
+        }
+    }
+
+    /**
+     * Reserves in memory, then commits to the database (or journal).
+     *
+     * The in-memory reservation is optimistic: the commit re-checks the seats
+     * against the database inside a write transaction, so no number of
+     * processes sharing it can overbook. If another process got there first,
+     * its changes are pulled from the change feed and a booking that did
+     * not ask for particular seats is tried again.
+     */
+    private int[] reserveAndPersist(Route route, int ticketCount, int[] requestedSeats) {
+        if (ticketCount <= 0) {
+            return null;
+        }
+        int routeId = route.getId();
+
+        for (int attempt = 1; ; attempt++) {
+            int remaining = seatInventory.tryReserve(routeId, ticketCount);
+            if (remaining == SeatInventory.NOT_ENOUGH_SEATS) {
+                return null; // Not enough seats
+            }
+
+            SeatMap seatMap = seatMap(routeId);
+            int[] seats = null;
+            if (seatMap != null) {
+                synchronized (seatMap) {
+                    seats = takeSeats(seatMap, ticketCount, requestedSeats);
+                    // Journaled under the map's monitor, so the journal keeps each route's order
+                    if (seats != null && journal != null && !journal.recordBooking(routeId, seats)) {
+                        seatMap.release(seats);
+                        seats = null;
+                    }
+                }
+            }
+            if (seats == null) {
+                seatInventory.release(routeId, ticketCount);
+                return null; // Requested seats taken, or the seat map disagrees with the counter
+            }
+            if (journal != null) {
+                remaining = seatInventory.commit(routeId, ticketCount);
+            } else if (!commitToDatabase(routeId, ticketCount, seatMap, seats, 0)) {
+                if (requestedSeats == null && attempt < MAX_BOOKING_ATTEMPTS) {
+                    continue; // Lost a race with another process; retry on the refreshed state
+                }
+                return null;
+            } else {
+                remaining = seatInventory.getAvailableSeats(routeId);
+            }
+            long fanOutStart = System.nanoTime();
+            publishSeatChange(routeId, ticketCount, 0);
+
+            // Notify observers of the booking
+            notifyObservers(route.withAvailableSeats(remaining), ticketCount);
+            PerformanceMetrics.record(Operation.OBSERVER_FANOUT, fanOutStart);
+
+            return seats;
+        }
+    }
+
+    /**
+     * Picks the seats of a booking or hold in a seat map. The caller holds
+     * the seat map's monitor.
+     *
+     * @return the taken seats, or null if the requested seats are not free
+     */
+    private static int[] takeSeats(SeatMap seatMap, int ticketCount, int[] requestedSeats) {
+        if (requestedSeats == null) {
+            return seatMap.allocate(ticketCount);
+        }
+        return seatMap.book(requestedSeats) ? requestedSeats.clone() : null;
+    }
+
+    /**
+     * Takes the seats in the database through the group-commit writer and
+     * turns the in-memory reservation into committed seats. If the
+     * database refuses, the reservation is undone, the seat map is dropped
+     * (reloaded on next use) and the route's counter catches up with the
+     * database.
+     *
+     * @param publishedSeats seats already published as taken (by a hold),
+     *                       published as freed if the database refuses
+     */
+    private boolean commitToDatabase(int routeId, int ticketCount, SeatMap seatMap, int[] seats, int publishedSeats) {
+        long sequence;
+        try {
+            sequence = seatWriter.submit(routeId, seats).join();
+        } catch (CompletionException e) {
+            sequence = 0; // Batch transaction failed and was rolled back
+        }
+        boolean committed = sequence != 0;
+        if (committed) {
+            seatInventory.commit(routeId, ticketCount, sequence);
+        } else {
+            // The database disagrees (e.g. another process booked); it wins
+            seatInventory.release(routeId, ticketCount);
+            synchronized (seatMap) {
+                seatMap.release(seats);
+            }
+            seatMaps.remove(routeId, seatMap);
+            if (!catchUpWithFeed()) {
+                // Not explained by the feed (e.g. changed by an external tool): reload the count
+                resetSeatCount(routeId);
+            }
+            publishSeatChange(routeId, -publishedSeats, -publishedSeats);
+        }
+        return committed;
+    }
+
+    /**
+     * Reloads a route's committed seat count from the database, keeping
+     * this process's reservations.
+     */
+    private void resetSeatCount(int routeId) {
+        RouteRepository.SeatCount stored = repository.getSeatCount(routeId);
+        if (stored != null) {
+            seatInventory.reset(routeId, stored.getAvailableSeats(), stored.getChangeSequence());
+        }
+    }
+
+    /**
+     * Applies the changes other processes committed so far, right away.
+     *
+     * @return true if any were applied
+     */
+    private boolean catchUpWithFeed() {
+        if (changeFeed == null) {
+            return false;
+        }
+        try {
+            return changeFeed.poll() > 0;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Applies a seat change committed by another process: adjusts the
+     * route's counter and seat map, patches the catalog and notifies seat
+     * listeners and, for bookings, booking observers. Called by the change
+     * feed, one change at a time in commit order.
+     */
+    private void applyRemoteChange(SeatChangeFeed.SeatChange change) {
+        int routeId = change.getRouteId();
+        if (catalog.snapshot().getRoute(routeId) == null) {
+            // Added by another process; the reloaded catalog includes this change
+            catalog.invalidate();
+            analytics.markStale();
+            return;
+        }
+        int remaining = seatInventory.applyRemoteChange(routeId, change.getSequence(), change.getSeatDelta());
+
+        SeatMap seatMap = seatMaps.get(routeId);
+        if (seatMap != null) {
+            int[] seatNumbers = change.getSeatNumbers();
+            if (seatNumbers == null) {
+                seatMaps.remove(routeId, seatMap); // Unknown seats; reloaded on next use
+            } else {
+                synchronized (seatMap) {
+                    if (change.getSeatDelta() > 0) {
+                        seatMap.occupy(seatNumbers);
+                    } else {
+                        seatMap.release(seatNumbers);
+                    }
+                }
+            }
+        }
+
+        publishSeatChange(routeId, change.getSeatDelta(), 0);
+        if (change.getSeatDelta() > 0) {
+            Route route = catalog.snapshot().getRoute(routeId);
+            if (route != null) {
+                notifyObservers(route.withAvailableSeats(remaining), change.getSeatDelta());
+            }
+        }
+    }
+
+    /**
+     * Reloads every cached seat count and drops the seat maps after the
+     * change feed lost track of other processes' changes. Counts are reset
+     * rather than dropped, so reservations in flight stay accounted for.
+     */
+    private void reloadSeatState() {
+        System.err.println("Seat changes from other instances were pruned before being read; reloading seat state");
+        seatMaps.clear();
+        for (Integer routeId : seatInventory.getRouteIds()) {
+            resetSeatCount(routeId);
+        }
+        catalog.invalidate();
+        analytics.markStale();
+    }
+
+    /**
+     * Gets the in-memory seat map of a route, loading it on first use.
+     */
+    private SeatMap seatMap(int routeId) {
+        SeatMap seatMap = seatMaps.get(routeId);
+        if (seatMap == null) {
+            SeatMap loaded = repository.getSeatMap(routeId);
+            if (loaded == null) {
+                return null;
+            }
+            holds.occupyHeldSeats(routeId, loaded); // The database never contains holds
+            seatMap = seatMaps.computeIfAbsent(routeId, id -> loaded);
+        }
+        return seatMap;
+    }
+
+    /**
+     * Holds seats while the customer pays: they count against the route's
+     * available seats at once, like a booking, and are booked by
+     * {@link #confirmHold(String)} or returned by {@link #releaseHold(String)}.
+     * A hold neither confirmed nor released within
+     * {@code booking.hold.seconds} expires and its seats go back to the
+     * inventory, reaching seat listeners like any other change.
+     *
+     * Holds live in this process only and nothing is stored until one is
+     * confirmed, so a hold never outlives the process that took it.
+     * Confirming checks the seats against the database like any booking,
+     * since other processes sharing it do not see the hold.
+     *
+     * @return the hold, or null if the seats are not available
+     */
+    public SeatHold holdSeats(Route route, int ticketCount) {
+        return hold(route, ticketCount, null);
+    }
+
+    /**
+     * Holds exactly the given seat numbers, all or nothing.
+     *
+     * @see #holdSeats(Route, int)
+     */
+    public SeatHold holdSeats(Route route, int[] seatNumbers) {
+        return hold(route, seatNumbers.length, seatNumbers);
+    }
+
+    private SeatHold hold(Route route, int ticketCount, int[] requestedSeats) {
+        long start = System.nanoTime();
+        try {
+            SeatHold hold = ticketCount > 0 ? reserveHold(route.getId(), ticketCount, requestedSeats) : null;
+            if (hold == null) {
+                PerformanceMetrics.recordRejectedBooking();
+            }
+            return hold;
+        } catch (RuntimeException e) {
+            PerformanceMetrics.recordError(Operation.HOLD_SEATS);
+            throw e;
+        } finally {
+            PerformanceMetrics.record(Operation.HOLD_SEATS, start);
+        }
+    }
+
+    /**
+     * Reserves the seats on the counter and the seat map, as a booking
+     * does, and registers the hold under the seat map's monitor.
+     */
+    private SeatHold reserveHold(int routeId, int ticketCount, int[] requestedSeats) {
+        if (seatInventory.tryReserve(routeId, ticketCount) == SeatInventory.NOT_ENOUGH_SEATS) {
+            return null;
+        }
+        SeatMap seatMap = seatMap(routeId);
+        SeatHold hold = null;
+        if (seatMap != null) {
+            synchronized (seatMap) {
+                int[] seats = takeSeats(seatMap, ticketCount, requestedSeats);
+                if (seats != null) {
+                    hold = holds.add(routeId, seats, seatMap);
+                }
+            }
+        }
+        if (hold == null) {
+            seatInventory.release(routeId, ticketCount);
+            return null;
+        }
+        publishSeatChange(routeId, ticketCount, ticketCount); // Held, not sold
+        return hold;
+    }
+
+    /**
+     * Books the seats of a hold. Fails if the hold expired or was released,
+     * or if another process sharing the database took the seats meanwhile;
+     * the seats are then given back.
+     *
+     * @return the booked seat numbers, or null if the hold could not be confirmed
+     */
+    public int[] confirmHold(String holdId) {
+        long start = System.nanoTime();
+        try {
+            int[] seats = confirm(holdId);
+            if (seats == null) {
+                PerformanceMetrics.recordRejectedBooking();
+            }
+            return seats;
+        } catch (RuntimeException e) {
+            PerformanceMetrics.recordError(Operation.CONFIRM_HOLD);
+            throw e;
+        } finally {
+            PerformanceMetrics.record(Operation.CONFIRM_HOLD, start);
+        }
+    }
+
+    private int[] confirm(String holdId) {
+        SeatHolds.Entry entry = holds.claim(holdId);
+        if (entry == null) {
+            return null; // Expired, released or unknown
+        }
+        SeatHold hold = entry.getHold();
+        int routeId = hold.getRouteId();
+        int[] seats = hold.getSeatNumbers();
+        SeatMap seatMap = entry.getSeatMap();
+
+        if (journal != null) {
+            boolean journaled;
+            synchronized (seatMap) {
+                journaled = journal.recordBooking(routeId, seats);
+                if (!journaled) {
+                    seatMap.release(seats);
+                }
+                holds.unregister(entry);
+            }
+            if (!journaled) {
+                seatInventory.release(routeId, seats.length);
+                publishSeatChange(routeId, -seats.length, -seats.length);
+                return null;
+            }
+            seatInventory.commit(routeId, seats.length);
+        } else {
+            synchronized (seatMap) {
+                holds.unregister(entry);
+            }
+            SeatMap current = seatMap(routeId);
+            if (current != null && current != seatMap) {
+                // Reloaded since the hold was taken; the database decides below
+                synchronized (current) {
+                    current.occupy(seats);
+                }
+                seatMap = current;
+            }
+            if (!commitToDatabase(routeId, seats.length, seatMap, seats, seats.length)) {
+                return null;
+            }
+        }
+
+        // Already taken when held; the seats only move from held to sold now
+        RouteCatalog.Snapshot snapshot = catalog.snapshot();
+        analytics.recordSeatChange(snapshot, routeId, 0, -seats.length);
+        Route route = snapshot.getRoute(routeId);
+        if (route != null) {
+            notifyObservers(route.withAvailableSeats(seatInventory.getAvailableSeats(routeId)), seats.length);
+        }
+        return seats;
+    }
+
+    /**
+     * Gives the seats of a hold back before it expires.
+     *
+     * @return false if the hold already expired, was confirmed or never existed
+     */
+    public boolean releaseHold(String holdId) {
+        SeatHolds.Entry entry = holds.claim(holdId);
+        if (entry == null) {
+            return false;
+        }
+        returnHeldSeats(entry);
         return true;
     }
 
+    /**
+     * Called by the hold timer on its thread.
+     */
+    private void expireHold(SeatHolds.Entry entry) {
+        if (holds.claimExpired(entry)) {
+            returnHeldSeats(entry);
+        }
+    }
+
+    /**
+     * Puts the seats of a claimed hold back into the inventory and
+     * publishes the change like any other.
+     */
+    private void returnHeldSeats(SeatHolds.Entry entry) {
+        SeatHold hold = entry.getHold();
+        int routeId = hold.getRouteId();
+        SeatMap seatMap = entry.getSeatMap();
+        synchronized (seatMap) {
+            seatMap.release(hold.getSeatNumbers());
+            holds.unregister(entry);
+        }
+        SeatMap current = seatMaps.get(routeId);
+        if (current != null && current != seatMap) {
+            seatMaps.remove(routeId, current); // Loaded with this hold's seats taken; reload without them
+        }
+        seatInventory.release(routeId, hold.getSeatCount());
+        publishSeatChange(routeId, -hold.getSeatCount(), -hold.getSeatCount());
+    }
+
+    /**
+     * Gets the holds neither confirmed, released nor expired yet.
+     */
+    public int getActiveHoldCount() {
+        return holds.size();
+    }
+
+    /**
+     * Gets the current available seats for a route, including bookings
+     * not yet visible on previously fetched Route objects.
+     */
+    public int getAvailableSeats(int routeId) {
+        return seatInventory.getAvailableSeats(routeId);
+    }
+
+    /**
+     * Gets the live occupancy and revenue figures per city pair and
+     * departure hour (see {@link OccupancyAnalytics#snapshot()}).
+     */
+    public OccupancyAnalytics getAnalytics() {
+        return analytics;
+    }
+
+    /**
+     * Gets the occupancy and revenue of one route, or null if it does not exist.
+     */
+    public OccupancyAnalytics.Stats getRouteStats(int routeId) {
+        return OccupancyAnalytics.routeStats(catalog.snapshot(), routeId, holds.heldSeats(routeId));
+    }
+
+    /**
+     * Gets the route catalog cache (e.g. to inspect hit/miss counters).
+     */
+    public RouteCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Makes the seat state durable in the database. With the journal this
+     * writes a snapshot and copies changed seat maps into the routes table;
+     * with database persistence every booking is already committed.
+     */
+    public void checkpoint() throws IOException {
+        if (journal != null) {
+            journal.snapshot();
+        }
+    }
+
+    /**
+     * Takes an online backup of the database now, while bookings continue.
+     * With the journal, the backup holds the seat counts of the last
+     * journal snapshot; call {@link #checkpoint()} first to include the rest.
+     */
+    public DatabaseBackup.Report backupDatabase() throws SQLException, IOException {
+        return backup.backup();
+    }
+
+    /**
+     * Starts the scheduled backups (database.backup.interval-minutes, off
+     * by default). Only the long-running entry points call this, so tools
+     * sharing the database do not back it up as well.
+     */
+    public void startScheduledBackups() {
+        backup.start();
+    }
+
+    /**
+     * Stops the backup schedule, the hold timer and the change feed, then flushes pending seat writes
+     * and stops the background writer, or writes a final journal snapshot.
+     */
+    public void shutdown() {
+        backup.close();
+        holds.close();
+        if (changeFeed != null) {
+            changeFeed.close();
+        }
+        if (journal != null) {
+            journal.close();
+        } else {
+            seatWriter.shutdown();
+        }
+        databaseLock.close();
+    }
+
     /**
      * Registers a booking observer (Observer design pattern for bonus).
      */
@@ -102,6 +855,60 @@ public class RouteService {
         observers.remove(observer);
     }
 
+    /**
+     * Subscribes to seat count changes of a single route, and delivers the
+     * current count right away (with the catalog version it was read at).
+     * A change made after the caller fetched the route but before it
+     * subscribed is therefore never lost: it is either in the current count
+     * or delivered as a change.
+     */
+    public void subscribeToSeatChanges(int routeId, SeatChangeListener listener) {
+        seatListeners.computeIfAbsent(routeId, id -> new CopyOnWriteArraySet<>()).add(listener);
+        // Read after subscribing: every change published before this is already in the catalog
+        RouteCatalog.Snapshot snapshot = catalog.peek();
+        if (snapshot != null && snapshot.getRoute(routeId) != null) {
+            listener.onSeatsChanged(routeId, snapshot.getAvailableSeats(routeId), snapshot.getVersion());
+        }
+    }
+
+    /**
+     * Unsubscribes from seat count changes of a single route.
+     */
+    public void unsubscribeFromSeatChanges(int routeId, SeatChangeListener listener) {
+        Set<SeatChangeListener> listeners = seatListeners.get(routeId);
+        if (listeners != null) {
+            listeners.remove(listener);
+        }
+    }
+
+    /**
+     * Patches the catalog with a route's current seat count, adds the change
+     * to the occupancy analytics and pushes the new count to the subscribers
+     * of that route only.
+     *
+     * @param seatDelta seats taken by the change (negative if freed, 0 if
+     *                  the count was only corrected)
+     * @param heldDelta seats of {@code seatDelta} taken or freed by a hold,
+     *                  which the analytics do not count as sold
+     */
+    private void publishSeatChange(int routeId, int seatDelta, int heldDelta) {
+        RouteCatalog.Snapshot snapshot = catalog.applySeatChange(routeId, () -> seatInventory.getAvailableSeats(routeId));
+        if (seatDelta != 0 || heldDelta != 0) {
+            analytics.recordSeatChange(snapshot, routeId, seatDelta, heldDelta);
+        }
+        Set<SeatChangeListener> listeners = seatListeners.get(routeId);
+        if (snapshot == null || listeners == null || listeners.isEmpty()) {
+            return;
+        }
+        Route route = snapshot.getRoute(routeId);
+        if (route == null) {
+            return;
+        }
+        for (SeatChangeListener listener : listeners) {
+            listener.onSeatsChanged(routeId, route.getAvailableSeats(), snapshot.getVersion());
+        }
+    }
+
     /**
      * Notifies all observers of a booking event.
      */
@@ -118,4 +925,17 @@ public class RouteService {
     public interface BookingObserver {
         void onBookingMade(Route route, int ticketCount);
     }
+
+    /**
+     * Listener for seat count changes of the routes it subscribed to.
+     * Called on the thread that made the change, or on the change feed's
+     * thread for changes made by other processes.
+     */
+    public interface SeatChangeListener {
+        /**
+         * @param version catalog version of the change; a higher version for the
+         *                same route is always newer, whatever the delivery order
+         */
+        void onSeatsChanged(int routeId, int availableSeats, long version);
+    }
 }
\ No newline at end of file
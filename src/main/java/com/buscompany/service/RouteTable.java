@@ -0,0 +1,288 @@
+package com.buscompany.service;
+
+import com.buscompany.model.Route;
+import com.buscompany.repository.RouteRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+/**
+ * Immutable columnar store of routes, one primitive array per field.
+ *
+ * City names are interned to int IDs (see {@link CityIndex}), times are
+ * minutes of the day in shorts, seats in ints and prices in doubles, so a
+ * route costs about 30 bytes instead of a Route object with its String and
+ * LocalTime references. Queries and sorts work on row numbers; Route
+ * objects are only created by {@link #toRoute(int)} for rows that are
+ * actually handed out.
+ */
+public final class RouteTable {
+    private static final long ROW_MASK = (1L << 31) - 1;
+    private static final int SEAT_PAGE_BITS = 10;
+    private static final int SEAT_PAGE_SIZE = 1 << SEAT_PAGE_BITS;
+
+    private final int size;
+    private final int[] ids;
+    private final int[] sourceCities;
+    private final int[] destinationCities;
+    private final short[] departureMinutes;
+    private final short[] arrivalMinutes;
+    private final int[] totalSeats;
+    private final int[][] availableSeatPages;
+    private final double[] prices;
+    private final CityIndex cities;
+
+    private RouteTable(int size, int[] ids, int[] sourceCities, int[] destinationCities,
+                       short[] departureMinutes, short[] arrivalMinutes, int[] totalSeats,
+                       int[][] availableSeatPages, double[] prices, CityIndex cities) {
+        this.size = size;
+        this.ids = ids;
+        this.sourceCities = sourceCities;
+        this.destinationCities = destinationCities;
+        this.departureMinutes = departureMinutes;
+        this.arrivalMinutes = arrivalMinutes;
+        this.totalSeats = totalSeats;
+        this.availableSeatPages = availableSeatPages;
+        this.prices = prices;
+        this.cities = cities;
+    }
+
+    /**
+     * Creates a builder; it can be passed straight to
+     * {@link RouteRepository#scanAllRoutes(RouteRepository.RouteRowHandler)}.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Builds a table from route objects.
+     */
+    public static RouteTable of(List<Route> routes) {
+        Builder builder = new Builder();
+        for (Route route : routes) {
+            builder.add(route);
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the city index; city IDs in this table are its IDs.
+     */
+    public CityIndex getCities() {
+        return cities;
+    }
+
+    public int getId(int row) {
+        return ids[row];
+    }
+
+    public int getSourceCityId(int row) {
+        return sourceCities[row];
+    }
+
+    public int getDestinationCityId(int row) {
+        return destinationCities[row];
+    }
+
+    /**
+     * Gets the departure time of a row in minutes since midnight.
+     */
+    public int getDepartureMinute(int row) {
+        return departureMinutes[row];
+    }
+
+    /**
+     * Gets the arrival time of a row in minutes since midnight.
+     */
+    public int getArrivalMinute(int row) {
+        return arrivalMinutes[row];
+    }
+
+    public int getTotalSeats(int row) {
+        return totalSeats[row];
+    }
+
+    public int getAvailableSeats(int row) {
+        return availableSeatPages[row >>> SEAT_PAGE_BITS][row & (SEAT_PAGE_SIZE - 1)];
+    }
+
+    public double getPrice(int row) {
+        return prices[row];
+    }
+
+    /**
+     * Creates a Route object for one row.
+     */
+    public Route toRoute(int row) {
+        return new Route(ids[row],
+                cities.getCityName(sourceCities[row]),
+                cities.getCityName(destinationCities[row]),
+                departureMinutes[row],
+                arrivalMinutes[row],
+                totalSeats[row],
+                getAvailableSeats(row),
+                prices[row]);
+    }
+
+    /**
+     * Sorts the rows by source city name, then departure time; rows that
+     * compare equal keep their storage order.
+     *
+     * Each row is packed into one long (city name rank, departure minute,
+     * row), so the Java Streams sort compares primitives only.
+     *
+     * @return row numbers in sorted order
+     */
+    public int[] sortBySourceAndDeparture() {
+        return LongStream.range(0, size)
+                .map(row -> (long) cities.getNameRank(sourceCities[(int) row]) << 42
+                        | (long) departureMinutes[(int) row] << 31
+                        | row)
+                .sorted()
+                .mapToInt(key -> (int) (key & ROW_MASK))
+                .toArray();
+    }
+
+    /**
+     * Returns a table where one row has a different number of available
+     * seats. The seat column is stored in pages of 1024 rows, so only the
+     * page array and the changed page are copied (a few KB, not the whole
+     * column); everything else is shared with this table.
+     */
+    RouteTable withAvailableSeats(int row, int seats) {
+        int[][] patched = availableSeatPages.clone();
+        int page = row >>> SEAT_PAGE_BITS;
+        patched[page] = patched[page].clone();
+        patched[page][row & (SEAT_PAGE_SIZE - 1)] = seats;
+        return new RouteTable(size, ids, sourceCities, destinationCities, departureMinutes,
+                arrivalMinutes, totalSeats, patched, prices, cities);
+    }
+
+    /**
+     * Returns a table with one more route appended as the last row.
+     */
+    RouteTable withRoute(Route route) {
+        CityIndex extendedCities = cities.withRoute(route);
+        int n = size + 1;
+        int[] newIds = Arrays.copyOf(ids, n);
+        int[] newSources = Arrays.copyOf(sourceCities, n);
+        int[] newDestinations = Arrays.copyOf(destinationCities, n);
+        short[] newDepartures = Arrays.copyOf(departureMinutes, n);
+        short[] newArrivals = Arrays.copyOf(arrivalMinutes, n);
+        int[] newTotalSeats = Arrays.copyOf(totalSeats, n);
+        int[] newAvailableSeats = new int[n];
+        for (int row = 0; row < size; row++) {
+            newAvailableSeats[row] = getAvailableSeats(row);
+        }
+        double[] newPrices = Arrays.copyOf(prices, n);
+
+        newIds[size] = route.getId();
+        newSources[size] = extendedCities.getCityId(route.getSourceCity());
+        newDestinations[size] = extendedCities.getCityId(route.getDestinationCity());
+        newDepartures[size] = (short) route.getDepartureMinute();
+        newArrivals[size] = (short) route.getArrivalMinute();
+        newTotalSeats[size] = route.getTotalSeats();
+        newAvailableSeats[size] = route.getAvailableSeats();
+        newPrices[size] = route.getPrice();
+        return new RouteTable(n, newIds, newSources, newDestinations, newDepartures, newArrivals,
+                newTotalSeats, toPages(newAvailableSeats, n), newPrices, extendedCities);
+    }
+
+    private static int[][] toPages(int[] column, int size) {
+        int[][] pages = new int[(size + SEAT_PAGE_SIZE - 1) >>> SEAT_PAGE_BITS][];
+        for (int page = 0; page < pages.length; page++) {
+            int from = page << SEAT_PAGE_BITS;
+            pages[page] = Arrays.copyOfRange(column, from, Math.min(size, from + SEAT_PAGE_SIZE));
+        }
+        return pages;
+    }
+
+    /**
+     * Collects rows into growable columns and interns city names on the way.
+     */
+    public static final class Builder implements RouteRepository.RouteRowHandler {
+        private final Map<String, Integer> cityIds = new HashMap<>();
+        private final List<String> cityNames = new ArrayList<>();
+        private int size;
+        private int[] ids = new int[64];
+        private int[] sourceCities = new int[64];
+        private int[] destinationCities = new int[64];
+        private short[] departureMinutes = new short[64];
+        private short[] arrivalMinutes = new short[64];
+        private int[] totalSeats = new int[64];
+        private int[] availableSeats = new int[64];
+        private double[] prices = new double[64];
+
+        private Builder() {
+        }
+
+        @Override
+        public void accept(int id, String sourceCity, String destinationCity, int departureMinute,
+                           int arrivalMinute, int totalSeats, int availableSeats, double price) {
+            if (size == ids.length) {
+                grow();
+            }
+            ids[size] = id;
+            sourceCities[size] = intern(sourceCity);
+            destinationCities[size] = intern(destinationCity);
+            departureMinutes[size] = (short) departureMinute;
+            arrivalMinutes[size] = (short) arrivalMinute;
+            this.totalSeats[size] = totalSeats;
+            this.availableSeats[size] = availableSeats;
+            prices[size] = price;
+            size++;
+        }
+
+        public void add(Route route) {
+            accept(route.getId(), route.getSourceCity(), route.getDestinationCity(),
+                    route.getDepartureMinute(),
+                    route.getArrivalMinute(),
+                    route.getTotalSeats(), route.getAvailableSeats(), route.getPrice());
+        }
+
+        public RouteTable build() {
+            String[] names = cityNames.toArray(new String[0]);
+            return new RouteTable(size,
+                    Arrays.copyOf(ids, size),
+                    Arrays.copyOf(sourceCities, size),
+                    Arrays.copyOf(destinationCities, size),
+                    Arrays.copyOf(departureMinutes, size),
+                    Arrays.copyOf(arrivalMinutes, size),
+                    Arrays.copyOf(totalSeats, size),
+                    toPages(availableSeats, size),
+                    Arrays.copyOf(prices, size),
+                    CityIndex.build(names, sourceCities, destinationCities, size));
+        }
+
+        private int intern(String city) {
+            Integer id = cityIds.get(city);
+            if (id == null) {
+                id = cityNames.size();
+                cityIds.put(city, id);
+                cityNames.add(city);
+            }
+            return id;
+        }
+
+        private void grow() {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            sourceCities = Arrays.copyOf(sourceCities, capacity);
+            destinationCities = Arrays.copyOf(destinationCities, capacity);
+            departureMinutes = Arrays.copyOf(departureMinutes, capacity);
+            arrivalMinutes = Arrays.copyOf(arrivalMinutes, capacity);
+            totalSeats = Arrays.copyOf(totalSeats, capacity);
+            availableSeats = Arrays.copyOf(availableSeats, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.buscompany.service;
+
+import com.buscompany.model.SeatHold;
+import com.buscompany.model.SeatMap;
+import com.buscompany.util.AppConfig;
+import com.buscompany.util.TimingWheel;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * The outstanding seat holds of this process, indexed by hold ID and by
+ * route, with their expiry driven by one {@link TimingWheel}.
+ *
+ * {@link RouteService} takes and gives back the seats; this class only
+ * keeps track of them. A hold changes owner exactly once: whoever removes
+ * it from the ID index first ({@link #claim(String)} to confirm or release,
+ * {@link #claimExpired(Entry)} when the wheel fires) handles it, so a
+ * hold confirmed while expiring is either booked or released, never both.
+ *
+ * Hold IDs are random 128-bit tokens, so knowing one hold's ID does not
+ * let a client confirm or release anyone else's.
+ *
+ * The route index lets seat state loaded from storage account for holds
+ * ({@link #occupyHeldSeats(int, SeatMap)}, {@link #heldSeats(int)}) and
+ * lets journal snapshots leave them out ({@link #releaseHeldSeats(int, SeatMap)}).
+ * It is changed under the monitor of the hold's seat map, together with
+ * the seats themselves.
+ */
+public class SeatHolds {
+    private final long holdMillis;
+    private final SecureRandom random = new SecureRandom();
+    private final AtomicLong expiredCount = new AtomicLong();
+    private final ConcurrentMap<String, Entry> byId = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Set<Entry>> byRoute = new ConcurrentHashMap<>();
+    private final TimingWheel<Entry> expiry;
+
+    /**
+     * An outstanding hold and the seat map its seats were taken in.
+     */
+    public static final class Entry {
+        private final SeatHold hold;
+        private final SeatMap seatMap;
+        private final int[] seatNumbers;
+        private volatile TimingWheel.Timeout<Entry> timeout;
+
+        private Entry(SeatHold hold, SeatMap seatMap) {
+            this.hold = hold;
+            this.seatMap = seatMap;
+            this.seatNumbers = hold.getSeatNumbers();
+        }
+
+        public SeatHold getHold() {
+            return hold;
+        }
+
+        public SeatMap getSeatMap() {
+            return seatMap;
+        }
+
+        int[] seatNumbers() {
+            return seatNumbers;
+        }
+    }
+
+    /**
+     * @param onExpiry called on the wheel's thread for each hold whose time ran out
+     */
+    public SeatHolds(Consumer<Entry> onExpiry) {
+        this(AppConfig.getLong("booking.hold.seconds", 600),
+                AppConfig.getLong("booking.hold.tick-ms", 100), onExpiry);
+    }
+
+    public SeatHolds(long holdSeconds, long tickMillis, Consumer<Entry> onExpiry) {
+        this.holdMillis = TimeUnit.SECONDS.toMillis(Math.max(1, holdSeconds));
+        this.expiry = new TimingWheel<>("seat-hold-expiry", Math.max(1, tickMillis), TimeUnit.MILLISECONDS, onExpiry);
+    }
+
+    /**
+     * Registers a hold on seats just taken in the given seat map and starts
+     * its timer. The caller holds the seat map's monitor.
+     */
+    public SeatHold add(int routeId, int[] seatNumbers, SeatMap seatMap) {
+        SeatHold hold = new SeatHold(newHoldId(), routeId, seatNumbers,
+                Instant.now().plusMillis(holdMillis));
+        Entry entry = new Entry(hold, seatMap);
+        byId.put(hold.getId(), entry);
+        byRoute.computeIfAbsent(routeId, id -> ConcurrentHashMap.newKeySet()).add(entry);
+        entry.timeout = expiry.schedule(entry, holdMillis, TimeUnit.MILLISECONDS);
+        return hold;
+    }
+
+    private String newHoldId() {
+        byte[] token = new byte[16];
+        random.nextBytes(token);
+        return HexFormat.of().formatHex(token);
+    }
+
+    /**
+     * Takes a hold over to confirm or release it, and stops its timer.
+     *
+     * @return the hold, or null if it expired, was already claimed or never existed
+     */
+    public Entry claim(String holdId) {
+        Entry entry = byId.remove(holdId);
+        if (entry != null) {
+            TimingWheel.Timeout<Entry> timeout = entry.timeout;
+            if (timeout != null) {
+                expiry.cancel(timeout);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Takes over a hold whose timer fired.
+     *
+     * @return false if it was claimed first (confirmed or released meanwhile)
+     */
+    public boolean claimExpired(Entry entry) {
+        if (!byId.remove(entry.hold.getId(), entry)) {
+            return false;
+        }
+        expiredCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Removes a claimed hold from its route, once its seats were booked or
+     * given back. The caller holds the seat map's monitor.
+     */
+    public void unregister(Entry entry) {
+        byRoute.computeIfPresent(entry.hold.getRouteId(), (id, entries) -> {
+            entries.remove(entry);
+            return entries.isEmpty() ? null : entries;
+        });
+    }
+
+    /**
+     * Gets the seats held on a route, so counts loaded from storage (which
+     * never contain holds) can be lowered by them.
+     */
+    public int heldSeats(int routeId) {
+        Set<Entry> entries = byRoute.get(routeId);
+        if (entries == null) {
+            return 0;
+        }
+        int seats = 0;
+        for (Entry entry : entries) {
+            seats += entry.seatNumbers.length;
+        }
+        return seats;
+    }
+
+    /**
+     * Marks the seats held on a route as taken in a seat map loaded from storage.
+     */
+    public void occupyHeldSeats(int routeId, SeatMap seatMap) {
+        Set<Entry> entries = byRoute.get(routeId);
+        if (entries != null) {
+            for (Entry entry : entries) {
+                seatMap.occupy(entry.seatNumbers);
+            }
+        }
+    }
+
+    /**
+     * Frees the seats held on a route in a copy of its live seat map, so
+     * the copy holds booked seats only.
+     */
+    public void releaseHeldSeats(int routeId, SeatMap copy) {
+        Set<Entry> entries = byRoute.get(routeId);
+        if (entries != null) {
+            for (Entry entry : entries) {
+                copy.release(entry.seatNumbers);
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return byRoute.isEmpty();
+    }
+
+    /**
+     * Gets the number of outstanding holds.
+     */
+    public int size() {
+        return byId.size();
+    }
+
+    /**
+     * Gets the number of holds that ran out since startup.
+     */
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    /**
+     * Stops the expiry timer; outstanding holds are dropped with the process.
+     */
+    public void close() {
+        expiry.stop();
+    }
+}
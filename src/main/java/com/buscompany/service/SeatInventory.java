@@ -0,0 +1,219 @@
+package com.buscompany.service;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * In-memory seat counters, one per route.
+ *
+ * Each route's counter keeps two numbers in one atomic long: the seats
+ * left in the database as far as this process knows (committed), and the
+ * seats this process took but has not committed yet (reserved: bookings
+ * in flight and holds). Reservations on different routes never contend,
+ * and reservations on the same route use a compare-and-set loop instead
+ * of a lock. The counters are a fast-path filter in front of the
+ * database: the conditional UPDATE in the repository remains the source
+ * of truth. The seats shown are committed minus reserved, never below 0.
+ *
+ * Seat changes committed by other processes arrive through the change
+ * feed and only move the committed count, so they never take the same
+ * seats twice from this process's reservations. Each counter remembers
+ * the last feed sequence number its committed count includes, so a change
+ * that was already part of the stored seats the counter was loaded (or
+ * reset) from is not applied twice; this process's own commits are
+ * matched against the same number.
+ */
+public class SeatInventory {
+    /** Returned by {@link #tryReserve(int, int)} when not enough seats are left. */
+    public static final int NOT_ENOUGH_SEATS = -1;
+
+    private final ConcurrentMap<Integer, Counter> counters = new ConcurrentHashMap<>();
+    private final IntFunction<StoredSeats> seatLoader;
+
+    /**
+     * @param seatLoader loads the persisted available seats for a route ID,
+     *                   used the first time a route is touched
+     */
+    public SeatInventory(IntFunction<StoredSeats> seatLoader) {
+        this.seatLoader = seatLoader;
+    }
+
+    /**
+     * Available seats of a route as stored, and the sequence number of the
+     * last change feed entry they include.
+     */
+    public static final class StoredSeats {
+        private final int availableSeats;
+        private final long changeSequence;
+
+        public StoredSeats(int availableSeats, long changeSequence) {
+            this.availableSeats = availableSeats;
+            this.changeSequence = changeSequence;
+        }
+    }
+
+    /**
+     * Reserves seats on a route if enough are available.
+     *
+     * @return the seats left after the reservation, or {@link #NOT_ENOUGH_SEATS}
+     */
+    public int tryReserve(int routeId, int seatCount) {
+        Counter counter = counter(routeId);
+        while (true) {
+            long state = counter.get();
+            int remaining = committed(state) - reserved(state) - seatCount;
+            if (remaining < 0) {
+                return NOT_ENOUGH_SEATS;
+            }
+            if (counter.compareAndSet(state, state(committed(state), reserved(state) + seatCount))) {
+                return remaining;
+            }
+        }
+    }
+
+    /**
+     * Gives reserved seats back to a route (e.g. when persisting a
+     * reservation failed or a hold ended).
+     *
+     * @return the seats available afterwards
+     */
+    public int release(int routeId, int seatCount) {
+        return available(counter(routeId).addAndGet(-seatCount));
+    }
+
+    /**
+     * Turns reserved seats into committed ones, for a store without a
+     * change feed (the journal).
+     *
+     * @return the seats available afterwards
+     */
+    public int commit(int routeId, int seatCount) {
+        return available(counter(routeId).addAndGet(state(-seatCount, -seatCount)));
+    }
+
+    /**
+     * Turns reserved seats into committed ones after this process's own
+     * database commit. If the committed count was loaded or reset from a
+     * read that already includes the commit, only the reservation ends.
+     *
+     * @param sequence the change feed sequence number of the commit
+     * @return the seats available afterwards
+     */
+    public int commit(int routeId, int seatCount, long sequence) {
+        Counter counter = counter(routeId);
+        synchronized (counter) {
+            int committedDelta = sequence > counter.changeSequence ? -seatCount : 0;
+            return available(counter.addAndGet(state(committedDelta, -seatCount)));
+        }
+    }
+
+    /**
+     * Gets the seats of a route that are neither committed nor reserved,
+     * never below 0.
+     */
+    public int getAvailableSeats(int routeId) {
+        return available(counter(routeId).get());
+    }
+
+    /**
+     * Gets the seats this process reserved on a route but has not
+     * committed, without loading the route.
+     */
+    public int getReservedSeats(int routeId) {
+        Counter counter = counters.get(routeId);
+        return counter == null ? 0 : reserved(counter.get());
+    }
+
+    /**
+     * Gets the IDs of the routes with a counter.
+     */
+    public Set<Integer> getRouteIds() {
+        return Collections.unmodifiableSet(counters.keySet());
+    }
+
+    /**
+     * Overwrites a route's committed count with the persisted value,
+     * keeping its reservations. Ignored if the counter already includes
+     * later changes than the read.
+     *
+     * @param sequence the sequence number of the last change feed entry the
+     *                 persisted value includes
+     */
+    public void reset(int routeId, int availableSeats, long sequence) {
+        Counter counter = counter(routeId);
+        synchronized (counter) {
+            if (sequence < counter.changeSequence) {
+                return;
+            }
+            counter.changeSequence = sequence;
+            long state;
+            do {
+                state = counter.get();
+            } while (!counter.compareAndSet(state, state(availableSeats, reserved(state))));
+        }
+    }
+
+    /**
+     * Applies a seat change committed by another process to the committed
+     * count, unless it already includes it. Changes must be applied in
+     * sequence order.
+     *
+     * @param seatDelta seats taken by the change (negative if freed)
+     * @return the seats available afterwards
+     */
+    public int applyRemoteChange(int routeId, long sequence, int seatDelta) {
+        Counter counter = counter(routeId);
+        synchronized (counter) {
+            if (sequence <= counter.changeSequence) {
+                return available(counter.get()); // Loaded after the change was committed
+            }
+            counter.changeSequence = sequence;
+            return available(counter.addAndGet(state(-seatDelta, 0)));
+        }
+    }
+
+    private Counter counter(int routeId) {
+        Counter counter = counters.get(routeId);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(routeId, id -> new Counter(seatLoader.apply(id)));
+        }
+        return counter;
+    }
+
+    // Committed seats in the high half, reserved seats in the low half; adding
+    // two states adds both halves, since the low half never goes below 0
+    private static long state(int committed, int reserved) {
+        return ((long) committed << 32) + reserved;
+    }
+
+    private static int committed(long state) {
+        return (int) ((state - reserved(state)) >> 32);
+    }
+
+    private static int reserved(long state) {
+        return (int) state;
+    }
+
+    private static int available(long state) {
+        return Math.max(0, committed(state) - reserved(state));
+    }
+
+    private static final class Counter extends AtomicLong {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Last change feed sequence number the committed count includes;
+         * changed under the counter's monitor.
+         */
+        long changeSequence;
+
+        Counter(StoredSeats stored) {
+            super(state(stored.availableSeats, 0));
+            this.changeSequence = stored.changeSequence;
+        }
+    }
+}
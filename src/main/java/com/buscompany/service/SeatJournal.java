@@ -0,0 +1,249 @@
+package com.buscompany.service;
+
+import com.buscompany.model.SeatMap;
+import com.buscompany.repository.BookingJournal;
+import com.buscompany.repository.RouteRepository;
+import com.buscompany.repository.SeatSnapshotStore;
+import com.buscompany.util.AppConfig;
+import com.buscompany.util.ConcurrencyUtils;
+import com.buscompany.util.PerformanceMetrics;
+import com.buscompany.util.PerformanceMetrics.Operation;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seat state kept in a {@link BookingJournal} plus periodic
+ * {@link SeatSnapshotStore} snapshots instead of SQL
+ * ({@code booking.persistence=journal}).
+ *
+ * The live state is the map of route ID to seat map owned by
+ * {@link RouteService}. Bookings are appended to the journal while the
+ * caller holds the seat map's monitor, so the journal order per route is
+ * the order of the changes. A snapshot copies each map under its monitor
+ * after reading the journal's last sequence number; replaying the records
+ * after that number onto the copies is idempotent (seats are set or
+ * cleared, and counts are derived from the bitmaps), so a snapshot never
+ * needs to stop bookings.
+ *
+ * Seats held but not confirmed (see {@link SeatHolds}) are taken in the
+ * live maps but never journaled; snapshots free them in their copies, so
+ * neither the snapshots nor the routes table ever contain them.
+ *
+ * Recovery loads the newest snapshot and replays only the journal tail,
+ * so startup work grows with the bookings since the last snapshot, not
+ * with the number of routes. Routes missing from the snapshot start from
+ * their seat map in the database, which remains the base state.
+ */
+public class SeatJournal {
+    private final RouteRepository repository;
+    private final ConcurrentMap<Integer, SeatMap> seatMaps;
+    private final SeatHolds holds;
+    private final BookingJournal journal;
+    private final SeatSnapshotStore snapshots;
+    private final ScheduledExecutorService scheduler;
+    private final Set<Integer> changedSinceSnapshot = ConcurrentHashMap.newKeySet();
+    private volatile long snapshotSequence;
+
+    /**
+     * Opens the journal in {@code booking.journal.directory}.
+     *
+     * @param seatMaps the live seat maps; filled by {@link #recover()}
+     * @param holds    the outstanding holds, left out of snapshots
+     */
+    public SeatJournal(RouteRepository repository, ConcurrentMap<Integer, SeatMap> seatMaps, SeatHolds holds)
+            throws IOException {
+        Path directory = Path.of(AppConfig.getString("booking.journal.directory", "bus_booking-journal"));
+        this.repository = repository;
+        this.seatMaps = seatMaps;
+        this.holds = holds;
+        this.journal = new BookingJournal(directory,
+                AppConfig.getInt("booking.journal.segment-size-mb", 64) << 20,
+                AppConfig.getBoolean("booking.journal.force", false));
+        this.snapshots = new SeatSnapshotStore(directory);
+
+        long interval = AppConfig.getLong("booking.journal.snapshot-interval-seconds", 60);
+        if (interval > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(ConcurrencyUtils.daemonThreadFactory("seat-snapshot"));
+            scheduler.scheduleWithFixedDelay(this::snapshotIfChanged, interval, interval, TimeUnit.SECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    /**
+     * What recovery did and how long it took.
+     */
+    public static class RecoveryStats {
+        private final int snapshotRoutes;
+        private final long replayedRecords;
+        private final long elapsedMillis;
+
+        RecoveryStats(int snapshotRoutes, long replayedRecords, long elapsedMillis) {
+            this.snapshotRoutes = snapshotRoutes;
+            this.replayedRecords = replayedRecords;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getSnapshotRoutes() {
+            return snapshotRoutes;
+        }
+
+        public long getReplayedRecords() {
+            return replayedRecords;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("loaded %d routes from the snapshot, replayed %d journal records in %d ms",
+                    snapshotRoutes, replayedRecords, elapsedMillis);
+        }
+    }
+
+    /**
+     * Restores the seat maps from the newest snapshot and the journal tail
+     * into the live map. Call once, before any booking.
+     */
+    public RecoveryStats recover() throws IOException {
+        long start = System.nanoTime();
+        SeatSnapshotStore.Snapshot snapshot = snapshots.readLatest();
+        Map<Integer, SeatMap> restored = new HashMap<>();
+        if (snapshot != null) {
+            restored.putAll(snapshot.getSeatMaps());
+            snapshotSequence = snapshot.getSequence();
+        }
+        long replayed = journal.replay(snapshotSequence, (sequence, type, routeId, seatNumbers) -> {
+            SeatMap seatMap = restored.computeIfAbsent(routeId, repository::getSeatMap);
+            if (seatMap == null) {
+                return; // Route deleted since
+            }
+            changedSinceSnapshot.add(routeId); // Not yet in the routes table
+            if (type == BookingJournal.BOOKED) {
+                seatMap.occupy(seatNumbers);
+            } else if (type == BookingJournal.RELEASED) {
+                seatMap.release(seatNumbers);
+            }
+        });
+        seatMaps.putAll(restored);
+        return new RecoveryStats(snapshot == null ? 0 : snapshot.getSeatMaps().size(), replayed,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Appends a booking. The caller must hold the seat map's monitor.
+     *
+     * @return false if the journal could not be written (the booking must be undone)
+     */
+    public boolean recordBooking(int routeId, int[] seatNumbers) {
+        return append(BookingJournal.BOOKED, routeId, seatNumbers);
+    }
+
+    /**
+     * Appends a release of seats. The caller must hold the seat map's monitor.
+     *
+     * @return false if the journal could not be written
+     */
+    public boolean recordRelease(int routeId, int[] seatNumbers) {
+        return append(BookingJournal.RELEASED, routeId, seatNumbers);
+    }
+
+    private boolean append(byte type, int routeId, int[] seatNumbers) {
+        try {
+            journal.append(type, routeId, seatNumbers);
+            changedSinceSnapshot.add(routeId);
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Writes a snapshot of all seat maps, deletes journal segments no
+     * retained snapshot needs, and copies the routes changed since the
+     * previous snapshot into the database, so the routes table is current
+     * for its other readers (paging, reports, other tools).
+     */
+    public synchronized void snapshot() throws IOException {
+        long start = System.nanoTime();
+        try {
+            writeSnapshot();
+        } catch (IOException | RuntimeException e) {
+            PerformanceMetrics.recordError(Operation.SEAT_SNAPSHOT);
+            throw e;
+        } finally {
+            PerformanceMetrics.record(Operation.SEAT_SNAPSHOT, start);
+        }
+    }
+
+    private void writeSnapshot() throws IOException {
+        long sequence = journal.getLastSequence();
+        Map<Integer, SeatMap> changed = new HashMap<>();
+        for (Integer routeId : changedSinceSnapshot) {
+            changedSinceSnapshot.remove(routeId); // Changes from now on are marked again
+            changed.put(routeId, null);
+        }
+        Map<Integer, SeatMap> copies = new HashMap<>();
+        for (Map.Entry<Integer, SeatMap> entry : seatMaps.entrySet()) {
+            SeatMap seatMap = entry.getValue();
+            SeatMap copy;
+            synchronized (seatMap) {
+                copy = seatMap.copy();
+                holds.releaseHeldSeats(entry.getKey(), copy);
+            }
+            copies.put(entry.getKey(), copy);
+            if (changed.containsKey(entry.getKey())) {
+                changed.put(entry.getKey(), copy);
+            }
+        }
+        changed.values().removeIf(seatMap -> seatMap == null);
+
+        long oldestRetained = snapshots.write(sequence, copies);
+        snapshotSequence = sequence;
+        journal.deleteUpTo(oldestRetained);
+        if (!repository.saveSeatMaps(changed)) {
+            changedSinceSnapshot.addAll(changed.keySet()); // Retry with the next snapshot
+        }
+    }
+
+    /**
+     * Gets the number of journal records not yet covered by a snapshot.
+     */
+    public long getRecordsSinceSnapshot() {
+        return journal.getLastSequence() - snapshotSequence;
+    }
+
+    /**
+     * Stops periodic snapshots, writes a final one and flushes the journal.
+     */
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        snapshotIfChanged();
+        journal.close();
+    }
+
+    private void snapshotIfChanged() {
+        if (getRecordsSinceSnapshot() == 0) {
+            return;
+        }
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.buscompany.simulation;
+
+import com.buscompany.model.Route;
+import com.buscompany.model.SeatMap;
+import com.buscompany.repository.RouteRepository;
+import com.buscompany.service.RouteService;
+import com.buscompany.service.RouteTable;
+import com.buscompany.util.AppConfig;
+import com.buscompany.util.ConcurrencyUtils;
+import com.buscompany.util.LatencyHistogram;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives a {@link RouteService} with concurrent simulated clients, without
+ * any UI, and checks afterwards that no seat was oversold.
+ *
+ * Each client repeatedly browses the source cities, picks a route (popular
+ * routes are picked far more often, following a Zipf distribution), looks
+ * up its destinations and searches the direct routes, thinks, books 1 to
+ * {@code maxTickets} tickets and thinks again, until the run ends. Clients
+ * run on {@link ConcurrencyUtils#newTaskExecutor(String)} tasks.
+ *
+ * Verification compares the database after the run with the seat counts
+ * read before it: every route must have exactly its initial seats minus
+ * the tickets of successful bookings, never below zero, and a stored seat
+ * map whose free seats agree. Booking observers additionally flag any
+ * negative count seen during the run, and assigned seat numbers must be
+ * unique per route. The simulator must be the only writer while it runs.
+ */
+public class LoadSimulator {
+    private final RouteService routeService;
+    private final int clients;
+    private final long durationMillis;
+    private final int thinkTimeMinMillis;
+    private final int thinkTimeMaxMillis;
+    private final int maxTickets;
+    private final double zipfExponent;
+    private final long seed;
+
+    private final LatencyHistogram browseLatency = new LatencyHistogram();
+    private final LatencyHistogram searchLatency = new LatencyHistogram();
+    private final LatencyHistogram bookLatency = new LatencyHistogram();
+    private final LongAdder bookingsSucceeded = new LongAdder();
+    private final LongAdder bookingsRefused = new LongAdder();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder negativeSeatsObserved = new LongAdder();
+    private final LongAdder duplicateSeats = new LongAdder();
+    private final ConcurrentMap<Integer, LongAdder> ticketsByRoute = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Set<Integer>> seatsByRoute = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a simulator with the {@code simulator.*} settings.
+     */
+    public LoadSimulator(RouteService routeService) {
+        this(routeService,
+                AppConfig.getInt("simulator.clients", 200),
+                AppConfig.getLong("simulator.duration-seconds", 30) * 1000);
+    }
+
+    /**
+     * Creates a simulator with the given client count and run time; the
+     * other settings come from {@code simulator.*}.
+     */
+    public LoadSimulator(RouteService routeService, int clients, long durationMillis) {
+        this.routeService = routeService;
+        this.clients = clients;
+        this.durationMillis = durationMillis;
+        this.thinkTimeMinMillis = AppConfig.getInt("simulator.think-time-min-ms", 50);
+        this.thinkTimeMaxMillis = Math.max(thinkTimeMinMillis, AppConfig.getInt("simulator.think-time-max-ms", 500));
+        this.maxTickets = Math.max(1, AppConfig.getInt("simulator.max-tickets", 4));
+        this.zipfExponent = Double.parseDouble(AppConfig.getString("simulator.zipf-exponent", "1.0"));
+        this.seed = AppConfig.getLong("simulator.seed", 42);
+    }
+
+    /**
+     * Runs the simulation and the overbooking check.
+     */
+    public Report run() throws InterruptedException, IOException {
+        RouteTable table = routeService.getCatalog().snapshot().getTable();
+        if (table.size() == 0) {
+            throw new IllegalStateException("No routes to book");
+        }
+        Map<Integer, Integer> initialSeats = new HashMap<>();
+        for (int row = 0; row < table.size(); row++) {
+            initialSeats.put(table.getId(row), table.getAvailableSeats(row));
+        }
+        ZipfDistribution popularity = new ZipfDistribution(table.size(), zipfExponent, seed);
+
+        RouteService.BookingObserver observer = (route, ticketCount) -> {
+            if (route.getAvailableSeats() < 0) {
+                negativeSeatsObserved.increment();
+            }
+        };
+        routeService.addObserver(observer);
+
+        ExecutorService executor = ConcurrencyUtils.newTaskExecutor("sim-client");
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(clients);
+        long elapsedNanos;
+        try {
+            for (int i = 0; i < clients; i++) {
+                futures.add(executor.submit(() -> {
+                    startGate.await();
+                    runClient(table, popularity);
+                    return null;
+                }));
+            }
+            long start = System.nanoTime();
+            startGate.countDown();
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace();
+                    clientErrors.increment();
+                }
+            }
+            elapsedNanos = System.nanoTime() - start;
+        } finally {
+            executor.shutdownNow();
+            routeService.removeObserver(observer);
+        }
+
+        routeService.checkpoint(); // Journaled seat state reaches the routes table
+        return new Report(elapsedNanos, verify(initialSeats));
+    }
+
+    private void runClient(RouteTable table, ZipfDistribution popularity) throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long deadline = System.nanoTime() + durationMillis * 1_000_000L;
+        while (System.nanoTime() < deadline) {
+            try {
+                long start = System.nanoTime();
+                routeService.getAllSourceCities();
+                browseLatency.record(System.nanoTime() - start);
+
+                int row = popularity.sample(random);
+                String source = table.getCities().getCityName(table.getSourceCityId(row));
+                String destination = table.getCities().getCityName(table.getDestinationCityId(row));
+                start = System.nanoTime();
+                routeService.getDestinationCitiesForSource(source);
+                List<Route> found = routeService.getRoutesBySourceAndDestination(source, destination);
+                searchLatency.record(System.nanoTime() - start);
+
+                Route route = null;
+                for (Route candidate : found) {
+                    if (candidate.getId() == table.getId(row)) {
+                        route = candidate;
+                        break;
+                    }
+                }
+                think(random);
+                if (route == null) {
+                    continue;
+                }
+
+                int tickets = 1 + random.nextInt(maxTickets);
+                start = System.nanoTime();
+                int[] seats = routeService.bookSeats(route, tickets);
+                bookLatency.record(System.nanoTime() - start);
+                if (seats == null) {
+                    bookingsRefused.increment();
+                } else {
+                    bookingsSucceeded.increment();
+                    ticketsByRoute.computeIfAbsent(route.getId(), id -> new LongAdder()).add(seats.length);
+                    Set<Integer> assigned = seatsByRoute.computeIfAbsent(route.getId(), id -> ConcurrentHashMap.newKeySet());
+                    for (int seat : seats) {
+                        if (!assigned.add(seat)) {
+                            duplicateSeats.increment();
+                        }
+                    }
+                }
+                think(random);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                clientErrors.increment();
+            }
+        }
+    }
+
+    private void think(ThreadLocalRandom random) throws InterruptedException {
+        if (thinkTimeMaxMillis > 0) {
+            Thread.sleep(random.nextInt(thinkTimeMinMillis, thinkTimeMaxMillis + 1));
+        }
+    }
+
+    /**
+     * Re-reads every route from the database and compares it with the
+     * initial seats minus the successful bookings.
+     */
+    private List<String> verify(Map<Integer, Integer> initialSeats) {
+        List<String> violations = new ArrayList<>();
+        if (negativeSeatsObserved.sum() > 0) {
+            violations.add(negativeSeatsObserved.sum() + " bookings reported a negative seat count");
+        }
+        if (duplicateSeats.sum() > 0) {
+            violations.add(duplicateSeats.sum() + " seats were assigned twice");
+        }
+
+        RouteRepository repository = new RouteRepository();
+        List<Route> persisted = repository.getAllRoutes();
+        if (persisted.size() != initialSeats.size()) {
+            violations.add("Route count changed from " + initialSeats.size() + " to " + persisted.size());
+        }
+        for (Route route : persisted) {
+            Integer initial = initialSeats.get(route.getId());
+            if (initial == null) {
+                continue;
+            }
+            LongAdder booked = ticketsByRoute.get(route.getId());
+            long expected = initial - (booked == null ? 0 : booked.sum());
+            int actual = route.getAvailableSeats();
+            if (actual < 0) {
+                violations.add("Route " + route.getId() + " has " + actual + " available seats");
+            }
+            if (actual != expected) {
+                violations.add("Route " + route.getId() + " has " + actual
+                        + " available seats, expected " + expected);
+            }
+            if (booked != null) {
+                SeatMap seatMap = repository.getSeatMap(route.getId());
+                if (seatMap == null || seatMap.getFreeCount() != actual) {
+                    violations.add("Route " + route.getId() + " seat map disagrees with "
+                            + actual + " available seats: " + seatMap);
+                }
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * Outcome of a run: throughput, latencies and overbooking violations.
+     */
+    public class Report {
+        private final long elapsedNanos;
+        private final List<String> violations;
+
+        private Report(long elapsedNanos, List<String> violations) {
+            this.elapsedNanos = elapsedNanos;
+            this.violations = violations;
+        }
+
+        public long getBookingsSucceeded() {
+            return bookingsSucceeded.sum();
+        }
+
+        public long getBookingsRefused() {
+            return bookingsRefused.sum();
+        }
+
+        public long getClientErrors() {
+            return clientErrors.sum();
+        }
+
+        /**
+         * Gets the problems found by the overbooking check; empty if none.
+         */
+        public List<String> getViolations() {
+            return violations;
+        }
+
+        public boolean isConsistent() {
+            return violations.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            double seconds = elapsedNanos / 1e9;
+            long attempts = getBookingsSucceeded() + getBookingsRefused();
+            long operations = browseLatency.getCount() + searchLatency.getCount() + bookLatency.getCount();
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Simulated %d clients for %.1f s (%s, think time %d-%d ms)%n",
+                    clients, seconds, ConcurrencyUtils.hasVirtualThreads() ? "virtual threads" : "platform threads",
+                    thinkTimeMinMillis, thinkTimeMaxMillis));
+            // Refused attempts are cheap, so only successful bookings measure booking throughput
+            sb.append(String.format("Throughput: %.1f operations/s, %.1f bookings/s (%.1f booking attempts/s)%n",
+                    operations / seconds, getBookingsSucceeded() / seconds, attempts / seconds));
+            sb.append(String.format("Bookings: %d succeeded, %d refused, %d client errors%n",
+                    getBookingsSucceeded(), getBookingsRefused(), getClientErrors()));
+            sb.append("Latency in us:\n");
+            appendLatency(sb, "browse", browseLatency);
+            appendLatency(sb, "search", searchLatency);
+            appendLatency(sb, "book", bookLatency);
+            if (violations.isEmpty()) {
+                sb.append("Seat check passed: no negative or drifted seat counts");
+            } else {
+                sb.append("Seat check FAILED:");
+                for (String violation : violations) {
+                    sb.append("\n  ").append(violation);
+                }
+            }
+            return sb.toString();
+        }
+
+        private void appendLatency(StringBuilder sb, String name, LatencyHistogram histogram) {
+            sb.append(String.format("  %-8s count=%d p50=%.1f p90=%.1f p99=%.1f p999=%.1f max=%.1f%n",
+                    name, histogram.getCount(),
+                    histogram.getPercentile(50) / 1000.0,
+                    histogram.getPercentile(90) / 1000.0,
+                    histogram.getPercentile(99) / 1000.0,
+                    histogram.getPercentile(99.9) / 1000.0,
+                    histogram.getMax() / 1000.0));
+        }
+    }
+
+    /**
+     * Zipf-distributed choice of table rows: the route of popularity rank k
+     * is picked with probability proportional to 1 / k^exponent. Ranks are
+     * assigned to rows in a seeded random order, so popularity does not
+     * follow route IDs.
+     */
+    static final class ZipfDistribution {
+        private final double[] cumulative;
+        private final int[] rowsByRank;
+
+        ZipfDistribution(int size, double exponent, long seed) {
+            cumulative = new double[size];
+            double sum = 0;
+            for (int rank = 0; rank < size; rank++) {
+                sum += 1.0 / Math.pow(rank + 1, exponent);
+                cumulative[rank] = sum;
+            }
+            rowsByRank = new int[size];
+            for (int i = 0; i < size; i++) {
+                rowsByRank[i] = i;
+            }
+            Random random = new Random(seed);
+            for (int i = size - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = rowsByRank[i];
+                rowsByRank[i] = rowsByRank[j];
+                rowsByRank[j] = swap;
+            }
+        }
+
+        int sample(Random random) {
+            double target = random.nextDouble() * cumulative[cumulative.length - 1];
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] < target) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return rowsByRank[low];
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.buscompany.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Application configuration loaded from application.properties.
+ *
+ * Values can be overridden with JVM system properties of the same name
+ * (e.g. -Ddatabase.name=other.db), which is handy for benchmarks and tools.
+ */
+public final class AppConfig {
+    private static final String CONFIG_RESOURCE = "/application.properties";
+    private static final Properties PROPERTIES = load();
+
+    private AppConfig() {
+    }
+
+    private static Properties load() {
+        Properties properties = new Properties();
+        try (InputStream in = AppConfig.class.getResourceAsStream(CONFIG_RESOURCE)) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to load " + CONFIG_RESOURCE);
+            e.printStackTrace();
+        }
+        return properties;
+    }
+
+    /**
+     * Gets a string setting, falling back to the given default.
+     */
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(key, PROPERTIES.getProperty(key));
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    /**
+     * Gets an integer setting, falling back to the given default.
+     */
+    public static int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid integer for " + key + ": " + value);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Gets a long setting, falling back to the given default.
+     */
+    public static long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid number for " + key + ": " + value);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Gets a boolean setting, falling back to the given default.
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+}
@@ -0,0 +1,105 @@
+package com.buscompany.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Utility methods for creating executors.
+ */
+public final class ConcurrencyUtils {
+    private static final MethodHandle VIRTUAL_EXECUTOR = findVirtualThreadExecutor();
+
+    private ConcurrencyUtils() {
+    }
+
+    /**
+     * Creates an executor that runs every task on its own virtual thread.
+     *
+     * The project compiles for Java 17, so virtual threads are looked up
+     * reflectively; on a runtime without them this falls back to a cached
+     * pool of daemon platform threads. Either way the threads are named
+     * {@code <name>-1}, {@code <name>-2}, ...
+     */
+    public static ExecutorService newTaskExecutor(String name) {
+        ExecutorService virtual = newVirtualThreadExecutor(name);
+        return virtual != null ? virtual : Executors.newCachedThreadPool(daemonThreadFactory(name));
+    }
+
+    /**
+     * Like {@link #newTaskExecutor(String)}, but the platform thread fallback
+     * runs at most {@code maxPlatformThreads} tasks at once and queues the
+     * rest, for executors whose task count is driven by outside clients.
+     */
+    public static ExecutorService newTaskExecutor(String name, int maxPlatformThreads) {
+        ExecutorService virtual = newVirtualThreadExecutor(name);
+        if (virtual != null) {
+            return virtual;
+        }
+        int threads = Math.max(1, maxPlatformThreads);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), daemonThreadFactory(name));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static ExecutorService newVirtualThreadExecutor(String name) {
+        if (VIRTUAL_EXECUTOR != null) {
+            try {
+                return (ExecutorService) VIRTUAL_EXECUTOR.invoke(name + "-");
+            } catch (Throwable e) {
+                e.printStackTrace();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if tasks from {@link #newTaskExecutor(String)} run on virtual threads.
+     */
+    public static boolean hasVirtualThreads() {
+        return VIRTUAL_EXECUTOR != null;
+    }
+
+    /**
+     * Creates a thread factory for named daemon threads.
+     */
+    public static ThreadFactory daemonThreadFactory(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Looks up {@code prefix -> Executors.newThreadPerTaskExecutor(
+     * Thread.ofVirtual().name(prefix, 1).factory())}, or null before Java 21.
+     */
+    private static MethodHandle findVirtualThreadExecutor() {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            Class<?> ofVirtual = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            MethodHandle create = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(ofVirtual));
+            MethodHandle name = lookup.findVirtual(ofVirtual, "name",
+                    MethodType.methodType(ofVirtual, String.class, long.class));
+            MethodHandle factory = lookup.findVirtual(builder, "factory", MethodType.methodType(ThreadFactory.class))
+                    .asType(MethodType.methodType(ThreadFactory.class, ofVirtual));
+            MethodHandle executor = lookup.findStatic(Executors.class, "newThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class, ThreadFactory.class));
+            MethodHandle named = MethodHandles.insertArguments(MethodHandles.collectArguments(name, 0, create), 1, 1L);
+            return MethodHandles.filterReturnValue(MethodHandles.filterReturnValue(named, factory), executor);
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.buscompany.util;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of SQLite connections.
+ *
+ * Connections are opened lazily up to the configured maximum. SQLite tuning
+ * pragmas (journal mode, synchronous level, busy timeout, mmap size) are
+ * applied once when a physical connection is opened.
+ *
+ * Transactions begin in the configured transaction mode (IMMEDIATE by
+ * default): every explicit transaction in this application writes, and
+ * taking the write lock at BEGIN makes a writer in another process wait
+ * for the busy timeout instead of failing with SQLITE_BUSY when it tries
+ * to upgrade a stale read snapshot.
+ */
+public class ConnectionPool {
+    private final String url;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final int statementCacheSize;
+    private final String journalMode;
+    private final String synchronous;
+    private final int busyTimeoutMillis;
+    private final long mmapSize;
+    private final String transactionMode;
+
+    private final BlockingQueue<PooledConnection> idle;
+    private final AtomicInteger opened = new AtomicInteger();
+    private volatile boolean closed;
+
+    public ConnectionPool(String url) {
+        this.url = url;
+        this.maxSize = Math.max(1, AppConfig.getInt("database.pool.size", 4));
+        this.acquireTimeoutMillis = AppConfig.getLong("database.pool.acquire-timeout-ms", 5000);
+        this.statementCacheSize = Math.max(1, AppConfig.getInt("database.statement-cache.size", 32));
+        this.journalMode = AppConfig.getString("database.pragma.journal-mode", "WAL");
+        this.synchronous = AppConfig.getString("database.pragma.synchronous", "NORMAL");
+        this.busyTimeoutMillis = AppConfig.getInt("database.pragma.busy-timeout-ms", 5000);
+        this.mmapSize = AppConfig.getLong("database.pragma.mmap-size", 268435456L);
+        this.transactionMode = AppConfig.getString("database.transaction-mode", "IMMEDIATE");
+        this.idle = new ArrayBlockingQueue<>(maxSize);
+    }
+
+    /**
+     * Borrows a connection, opening a new one if the pool is not yet full,
+     * otherwise waiting up to the acquire timeout for one to be released.
+     */
+    public PooledConnection acquire() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return acquireConnection();
+        } catch (SQLException e) {
+            PerformanceMetrics.recordError(PerformanceMetrics.Operation.CONNECTION_ACQUIRE);
+            throw e;
+        } finally {
+            PerformanceMetrics.record(PerformanceMetrics.Operation.CONNECTION_ACQUIRE, start);
+        }
+    }
+
+    private PooledConnection acquireConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        PooledConnection connection = idle.poll();
+        if (connection != null) {
+            return connection;
+        }
+        while (true) {
+            int current = opened.get();
+            if (current >= maxSize) {
+                break;
+            }
+            if (opened.compareAndSet(current, current + 1)) {
+                try {
+                    return open();
+                } catch (SQLException e) {
+                    opened.decrementAndGet();
+                    throw e;
+                }
+            }
+        }
+        try {
+            connection = idle.poll(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        if (connection == null) {
+            throw new SQLException("Timed out after " + acquireTimeoutMillis + " ms waiting for a database connection");
+        }
+        return connection;
+    }
+
+    /**
+     * Returns a borrowed connection. Any transaction left open is rolled back.
+     */
+    void release(PooledConnection connection) {
+        try {
+            Connection raw = connection.getRawConnection();
+            if (!raw.getAutoCommit()) {
+                raw.rollback();
+                raw.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            discard(connection);
+            return;
+        }
+        if (closed || !idle.offer(connection)) {
+            discard(connection);
+        }
+    }
+
+    /**
+     * Closes all idle connections; borrowed ones are closed when released.
+     */
+    public void close() {
+        closed = true;
+        PooledConnection connection;
+        while ((connection = idle.poll()) != null) {
+            discard(connection);
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    private void discard(PooledConnection connection) {
+        connection.closePhysical();
+        opened.decrementAndGet();
+    }
+
+    /**
+     * Opens a tuned connection outside the pool, for a long-lived reader
+     * that must not hold a pooled connection. The caller closes it.
+     */
+    public Connection openUnpooled() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        return openPhysical();
+    }
+
+    private PooledConnection open() throws SQLException {
+        return new PooledConnection(openPhysical(), this, statementCacheSize);
+    }
+
+    private Connection openPhysical() throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("transaction_mode", transactionMode);
+        Connection connection = DriverManager.getConnection(url, properties);
+        try (Statement stmt = connection.createStatement()) {
+            // busy_timeout first so the journal mode switch waits for other writers
+            stmt.execute("PRAGMA busy_timeout = " + busyTimeoutMillis);
+            stmt.execute("PRAGMA journal_mode = " + journalMode);
+            stmt.execute("PRAGMA synchronous = " + synchronous);
+            stmt.execute("PRAGMA mmap_size = " + mmapSize);
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        return connection;
+    }
+}
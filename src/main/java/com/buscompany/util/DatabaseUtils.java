@@ -1,23 +1,75 @@
 package com.buscompany.util;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.UUID;
 
 /**
  * Utility class for database operations.
- * 
- * Manages SQLite database connections and provides
+ *
+ * Manages the shared SQLite connection pool and provides
  * utility methods for database management.
  */
 public class DatabaseUtils {
-    private static final String DB_URL = "jdbc:sqlite:bus_booking.db";
+    private static final String DB_URL = "jdbc:sqlite:" + AppConfig.getString("database.name", "bus_booking.db");
+
+    private static final String INSTANCE_ID = UUID.randomUUID().toString();
+
+    private static volatile ConnectionPool pool;
+
+    /**
+     * Borrows a pooled database connection. Close it to return it to the pool.
+     */
+    public static PooledConnection getConnection() throws SQLException {
+        return getPool().acquire();
+    }
+
+    /**
+     * Opens a connection outside the pool, tuned like the pooled ones.
+     * The caller closes it.
+     */
+    public static Connection openUnpooledConnection() throws SQLException {
+        return getPool().openUnpooled();
+    }
+
+    /**
+     * Gets an ID unique to this process, used to tell its own rows apart
+     * in tables shared with other instances (see the seat change feed).
+     */
+    public static String getInstanceId() {
+        return INSTANCE_ID;
+    }
 
     /**
-     * Gets a new database connection.
+     * Gets the JDBC URL of the application database.
      */
-    public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL);
+    public static String getDatabaseUrl() {
+        return DB_URL;
+    }
+
+    /**
+     * Closes all pooled connections (e.g. on application shutdown).
+     */
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+
+    private static ConnectionPool getPool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DatabaseUtils.class) {
+                current = pool;
+                if (current == null) {
+                    loadDriver();
+                    current = new ConnectionPool(DB_URL);
+                    pool = current;
+                }
+            }
+        }
+        return current;
     }
 
     /**
@@ -31,4 +83,4 @@ public class DatabaseUtils {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+}
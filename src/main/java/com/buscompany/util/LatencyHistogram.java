@@ -0,0 +1,142 @@
+package com.buscompany.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free, allocation-free latency histogram.
+ *
+ * Values (nanoseconds) are counted in log-linear buckets: every power of two
+ * is split into 16 sub-buckets, so a reported percentile is within about 6%
+ * of the true value. Recording is a couple of bit operations and one atomic
+ * increment, cheap enough to leave on in production.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one value in nanoseconds. Negative values count as zero.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketIndex(value));
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Gets the value at the given percentile (0-100) in nanoseconds,
+     * or 0 if nothing was recorded.
+     */
+    public long getPercentile(double percentile) {
+        int bucket = percentileBucket(copyCounts(), percentile);
+        return bucket < 0 ? 0 : Math.min(bucketUpperBound(bucket), max.get());
+    }
+
+    /**
+     * Copies the current bucket counts. Two copies describe the values
+     * recorded between them, see {@link #percentileBetween(long[], long[], double)}.
+     */
+    public long[] copyCounts() {
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Gets the value at the given percentile (0-100) in nanoseconds of the
+     * values recorded between two {@link #copyCounts()} calls, or 0 if
+     * nothing was recorded in between.
+     */
+    public static long percentileBetween(long[] before, long[] after, double percentile) {
+        long[] window = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            window[i] = Math.max(0, after[i] - before[i]); // Negative after a reset
+        }
+        int bucket = percentileBucket(window, percentile);
+        return bucket < 0 ? 0 : bucketUpperBound(bucket);
+    }
+
+    /**
+     * Gets the number of values recorded between two {@link #copyCounts()} calls.
+     */
+    public static long countBetween(long[] before, long[] after) {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += Math.max(0, after[i] - before[i]);
+        }
+        return total;
+    }
+
+    private static int percentileBucket(long[] snapshot, double percentile) {
+        long total = 0;
+        for (long count : snapshot) {
+            total += count;
+        }
+        if (total == 0) {
+            return -1;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return i;
+            }
+        }
+        return BUCKET_COUNT - 1;
+    }
+
+    /**
+     * Gets the number of recorded values.
+     */
+    public long getCount() {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        max.set(0);
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value); // >= SUB_BUCKET_BITS
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+}
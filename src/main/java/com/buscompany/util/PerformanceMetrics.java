@@ -0,0 +1,198 @@
+package com.buscompany.util;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Process-wide latency and throughput metrics for the repository and the
+ * booking pipeline.
+ *
+ * Every {@link Operation} has a latency histogram plus call and error
+ * counters. Recording only touches preallocated atomics, so it is safe to
+ * keep enabled in production. The metrics are exposed as a JMX MXBean
+ * ({@value #OBJECT_NAME}) and can optionally be dumped to the log every
+ * {@code metrics.log-interval-seconds} seconds.
+ */
+public final class PerformanceMetrics implements PerformanceMetricsMXBean {
+    public static final String OBJECT_NAME = "com.buscompany:type=PerformanceMetrics";
+
+    /**
+     * Measured operations.
+     */
+    public enum Operation {
+        GET_ALL_ROUTES,
+        GET_ROUTES_PAGE,
+        COUNT_ROUTES,
+        GET_ROUTES_BY_CITIES,
+        GET_ROUTE_BY_ID,
+        UPDATE_AVAILABLE_SEATS,
+        DECREMENT_AVAILABLE_SEATS_BATCH,
+        GET_SEAT_MAP,
+        SAVE_SEAT_MAPS,
+        SEAT_SNAPSHOT,
+        GET_SOURCE_CITIES,
+        GET_DESTINATION_CITIES,
+        ADD_ROUTE,
+        BOOK_TICKETS,
+        HOLD_SEATS,
+        CONFIRM_HOLD,
+        DATABASE_BACKUP,
+        CONNECTION_ACQUIRE,
+        OBSERVER_FANOUT,
+        HTTP_REQUEST
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final PerformanceMetrics INSTANCE = new PerformanceMetrics();
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+    private final LongAdder[] calls = new LongAdder[OPERATIONS.length];
+    private final LongAdder[] errors = new LongAdder[OPERATIONS.length];
+    private final LongAdder rejectedBookings = new LongAdder();
+
+    static {
+        INSTANCE.register();
+    }
+
+    private PerformanceMetrics() {
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            latencies[i] = new LatencyHistogram();
+            calls[i] = new LongAdder();
+            errors[i] = new LongAdder();
+        }
+    }
+
+    public static PerformanceMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Records one call of an operation that started at {@code startNanos}
+     * (a {@link System#nanoTime()} value).
+     */
+    public static void record(Operation operation, long startNanos) {
+        int i = operation.ordinal();
+        INSTANCE.calls[i].increment();
+        INSTANCE.latencies[i].record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records a failed call of an operation.
+     */
+    public static void recordError(Operation operation) {
+        INSTANCE.errors[operation.ordinal()].increment();
+    }
+
+    /**
+     * Records a booking refused for lack of seats.
+     */
+    public static void recordRejectedBooking() {
+        INSTANCE.rejectedBookings.increment();
+    }
+
+    /**
+     * Gets the latency histogram of an operation.
+     */
+    public LatencyHistogram getLatency(Operation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    @Override
+    public Map<String, Long> getCallCounts() {
+        return perOperation(op -> calls[op.ordinal()].sum());
+    }
+
+    @Override
+    public Map<String, Long> getErrorCounts() {
+        return perOperation(op -> errors[op.ordinal()].sum());
+    }
+
+    @Override
+    public long getRejectedBookings() {
+        return rejectedBookings.sum();
+    }
+
+    @Override
+    public Map<String, Double> getP50Micros() {
+        return percentileMicros(50);
+    }
+
+    @Override
+    public Map<String, Double> getP99Micros() {
+        return percentileMicros(99);
+    }
+
+    @Override
+    public Map<String, Double> getP999Micros() {
+        return percentileMicros(99.9);
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder sb = new StringBuilder("Performance metrics (latency in us):\n");
+        for (Operation op : OPERATIONS) {
+            long count = calls[op.ordinal()].sum();
+            if (count == 0) {
+                continue;
+            }
+            LatencyHistogram histogram = latencies[op.ordinal()];
+            sb.append(String.format("  %-32s calls=%d errors=%d p50=%.1f p99=%.1f p999=%.1f max=%.1f%n",
+                    op, count, errors[op.ordinal()].sum(),
+                    histogram.getPercentile(50) / 1000.0,
+                    histogram.getPercentile(99) / 1000.0,
+                    histogram.getPercentile(99.9) / 1000.0,
+                    histogram.getMax() / 1000.0));
+        }
+        sb.append("  rejected bookings=").append(rejectedBookings.sum());
+        return sb.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            latencies[i].reset();
+            calls[i].reset();
+            errors[i].reset();
+        }
+        rejectedBookings.reset();
+    }
+
+    private Map<String, Double> percentileMicros(double percentile) {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (Operation op : OPERATIONS) {
+            result.put(op.name(), latencies[op.ordinal()].getPercentile(percentile) / 1000.0);
+        }
+        return result;
+    }
+
+    private static Map<String, Long> perOperation(ToLongFunction<Operation> value) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Operation op : OPERATIONS) {
+            result.put(op.name(), value.applyAsLong(op));
+        }
+        return result;
+    }
+
+    private void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (Exception e) {
+            System.err.println("Failed to register performance metrics MBean");
+            e.printStackTrace();
+        }
+
+        long interval = AppConfig.getLong("metrics.log-interval-seconds", 0);
+        if (interval > 0) {
+            ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+                    ConcurrencyUtils.daemonThreadFactory("metrics-log"));
+            scheduler.scheduleAtFixedRate(() -> System.out.println(dump()), interval, interval, TimeUnit.SECONDS);
+        }
+    }
+}
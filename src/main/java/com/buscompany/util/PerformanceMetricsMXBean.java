@@ -0,0 +1,30 @@
+package com.buscompany.util;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link PerformanceMetrics}. Maps are keyed by operation name.
+ */
+public interface PerformanceMetricsMXBean {
+    Map<String, Long> getCallCounts();
+
+    Map<String, Long> getErrorCounts();
+
+    long getRejectedBookings();
+
+    Map<String, Double> getP50Micros();
+
+    Map<String, Double> getP99Micros();
+
+    Map<String, Double> getP999Micros();
+
+    /**
+     * Formats all metrics as a human-readable report.
+     */
+    String dump();
+
+    /**
+     * Clears all counters and histograms.
+     */
+    void reset();
+}
@@ -0,0 +1,221 @@
+package com.buscompany.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: fires a callback for each item when its
+ * deadline passes, with O(1) cost to schedule, cancel and expire an item,
+ * however many are pending.
+ *
+ * Time advances in ticks. Level 0 has one slot per tick for the next 64
+ * ticks; each higher level has 64 slots, each covering a whole turn of the
+ * level below (64, 4096, 262144 ticks). An item goes into the lowest level
+ * whose range reaches its deadline. When a level completes a turn, the
+ * next slot of the level above is emptied and its items are placed again,
+ * now in a lower level; an item moves at most once per level. Deadlines
+ * beyond the top level wait in its last slot and are placed again when it
+ * comes round. Slots are doubly-linked lists, so a cancelled item is
+ * unlinked in place.
+ *
+ * One daemon thread advances the wheel. Items expire no earlier than their
+ * deadline and at most about one tick late; callbacks run on that thread,
+ * outside the wheel's lock, so they may schedule or cancel items.
+ *
+ * @param <T> the item passed to the callback
+ */
+public class TimingWheel<T> {
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_SPAN = 1L << (WHEEL_BITS * LEVELS);
+
+    private final long tickNanos;
+    private final long startNanos = System.nanoTime();
+    private final Consumer<T> onExpiry;
+    private final ScheduledExecutorService ticker;
+    private final Timeout<T>[][] slots; // Guarded by this; heads of the slot lists
+    private long currentTick;           // Guarded by this; last tick processed
+    private int size;                   // Guarded by this
+
+    /**
+     * A scheduled item; pass it to {@link #cancel(Timeout)} to unschedule it.
+     */
+    public static final class Timeout<T> {
+        private final T item;
+        private final long deadlineTick;
+        private Timeout<T> previous;
+        private Timeout<T> next;
+        private int level = -1;         // -1 when not in a slot
+        private int slot;
+
+        private Timeout(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getItem() {
+            return item;
+        }
+    }
+
+    /**
+     * Creates the wheel and starts its thread.
+     *
+     * @param name     thread name prefix
+     * @param tick     wheel resolution; deadlines are rounded up to a whole tick
+     * @param onExpiry called with each item whose deadline passed
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(String name, long tick, TimeUnit unit, Consumer<T> onExpiry) {
+        this.tickNanos = Math.max(1, unit.toNanos(tick));
+        this.onExpiry = onExpiry;
+        this.slots = (Timeout<T>[][]) new Timeout<?>[LEVELS][WHEEL_SIZE];
+        this.ticker = Executors.newSingleThreadScheduledExecutor(ConcurrencyUtils.daemonThreadFactory(name));
+        this.ticker.scheduleAtFixedRate(this::advance, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Schedules an item to expire after the given delay.
+     */
+    public synchronized Timeout<T> schedule(T item, long delay, TimeUnit unit) {
+        // First tick that starts at or after the deadline
+        long deadlineNanos = System.nanoTime() - startNanos + unit.toNanos(Math.max(0, delay));
+        long deadlineTick = (deadlineNanos + tickNanos - 1) / tickNanos;
+        Timeout<T> timeout = new Timeout<>(item, Math.max(currentTick + 1, deadlineTick));
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Unschedules an item.
+     *
+     * @return false if it already expired or was cancelled
+     */
+    public synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout.level < 0) {
+            return false;
+        }
+        unlink(timeout);
+        size--;
+        return true;
+    }
+
+    /**
+     * Gets the number of items waiting to expire.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Stops the wheel's thread; pending items never expire.
+     */
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    private long elapsedTicks() {
+        return (System.nanoTime() - startNanos) / tickNanos;
+    }
+
+    /**
+     * Processes every tick up to now and runs the callbacks of the items
+     * that expired.
+     */
+    private void advance() {
+        List<T> expired = new ArrayList<>();
+        synchronized (this) {
+            long target = elapsedTicks();
+            while (currentTick < target) {
+                currentTick++;
+                cascade();
+                int slot = (int) (currentTick & WHEEL_MASK);
+                Timeout<T> timeout = slots[0][slot];
+                slots[0][slot] = null;
+                while (timeout != null) {
+                    Timeout<T> next = timeout.next;
+                    timeout.previous = null;
+                    timeout.next = null;
+                    timeout.level = -1;
+                    expired.add(timeout.item);
+                    timeout = next;
+                }
+            }
+            size -= expired.size();
+        }
+        for (T item : expired) {
+            try {
+                onExpiry.accept(item);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Moves items down from every level that starts a new slot at the
+     * current tick, lowest level first.
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = WHEEL_BITS * level;
+            if ((currentTick & ((1L << shift) - 1)) != 0) {
+                return; // The level below has not completed a turn
+            }
+            int slot = (int) ((currentTick >>> shift) & WHEEL_MASK);
+            Timeout<T> timeout = slots[level][slot];
+            slots[level][slot] = null;
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                timeout.previous = null;
+                timeout.next = null;
+                place(timeout);
+                timeout = next;
+            }
+        }
+    }
+
+    /**
+     * Links an item into the slot its deadline falls in. Deadlines are
+     * never before the current tick; one at the current tick lands in the
+     * level 0 slot about to expire.
+     */
+    private void place(Timeout<T> timeout) {
+        long delta = timeout.deadlineTick - currentTick;
+        long tick = delta < MAX_SPAN ? timeout.deadlineTick : currentTick + MAX_SPAN - 1;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (WHEEL_BITS * (level + 1))) {
+            level++;
+        }
+        int slot = (int) ((tick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+        Timeout<T> head = slots[level][slot];
+        timeout.next = head;
+        if (head != null) {
+            head.previous = timeout;
+        }
+        slots[level][slot] = timeout;
+        timeout.level = level;
+        timeout.slot = slot;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            slots[timeout.level][timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.level = -1;
+    }
+}